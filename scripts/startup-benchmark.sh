@@ -0,0 +1,134 @@
+#!/usr/bin/env bash
+#
+# Startup time and memory of the market service, before and after the fast-startup setup.
+#
+# Builds the jar with the aot Maven profile, extracts it, trains a class data sharing archive and
+# starts the application RUNS times in each mode:
+#
+#   default        java -jar, default profile (Hibernate ddl-auto update, springdoc eager)
+#   prod           exploded classpath, prod profile
+#   prod-aot       prod plus the AOT generated bean definitions (-Dspring.aot.enabled=true)
+#   prod-aot-cds   prod-aot plus the class data sharing archive trained on it
+#
+# Each start is timed up to "Started MarketApplication", then its resident memory and used heap
+# are read and the process is stopped. The medians are printed and written to
+# target/startup-benchmark/results.md.
+#
+# The database defaults to an in-memory H2 in PostgreSQL mode so the numbers are reproducible
+# anywhere; set DB_URL, DB_USERNAME, DB_PASSWORD and DB_DIALECT to run against PostgreSQL.
+#
+# Usage: scripts/startup-benchmark.sh [RUNS]      (SKIP_BUILD=1 reuses target/*.jar)
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+WORK="$ROOT/target/startup-benchmark"
+APP="$WORK/app"
+MAIN_CLASS="code.with.vanilson.market.MarketApplication"
+JAVA_OPTS="${JAVA_OPTS:--Xms256m -Xmx512m}"
+
+DB_URL="${DB_URL:-jdbc:h2:mem:market_db;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1}"
+DB_USERNAME="${DB_USERNAME:-sa}"
+DB_PASSWORD="${DB_PASSWORD:-}"
+DB_DIALECT="${DB_DIALECT:-org.hibernate.dialect.H2Dialect}"
+APP_ARGS=(
+  "--server.port=0"
+  "--spring.datasource.url=$DB_URL"
+  "--spring.datasource.username=$DB_USERNAME"
+  "--spring.datasource.password=$DB_PASSWORD"
+  "--spring.datasource.driver-class-name="
+  "--spring.jpa.properties.hibernate.dialect=$DB_DIALECT"
+)
+
+if [[ "${SKIP_BUILD:-0}" != "1" ]]; then
+  (cd "$ROOT" && mvn -B -q -Paot -DskipTests package)
+fi
+JAR="$(ls "$ROOT"/target/*.jar | grep -v -- '-plain' | head -n 1)"
+
+# Class data sharing only covers classes loaded by the built-in class loaders from jars, so the
+# jar is run exploded, on a plain classpath of jars in the order recorded by the build
+rm -rf "$WORK"
+mkdir -p "$APP"
+(cd "$APP" && jar -xf "$JAR")
+jar -cf "$APP/application.jar" -C "$APP/BOOT-INF/classes" .
+CLASSPATH="$APP/application.jar"
+while read -r entry; do
+  CLASSPATH="$CLASSPATH:$APP/$entry"
+done < <(sed -n 's/^- "\(.*\)"$/\1/p' "$APP/BOOT-INF/classpath.idx")
+
+start() {
+  local log="$1"
+  shift
+  # shellcheck disable=SC2086
+  java $JAVA_OPTS "$@" "${APP_ARGS[@]}" >"$log" 2>&1 &
+  local pid=$!
+  for _ in $(seq 1 1200); do
+    if grep -q "Started MarketApplication" "$log"; then
+      echo "$pid"
+      return
+    fi
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Application exited during startup, see $log" >&2
+      exit 1
+    fi
+    sleep 0.1
+  done
+  kill "$pid"
+  echo "Application did not start within 120s, see $log" >&2
+  exit 1
+}
+
+measure() {
+  local mode="$1" run="$2"
+  shift 2
+  local log="$WORK/$mode-$run.log"
+  local pid
+  pid="$(start "$log" "$@")"
+  local seconds rss heap
+  seconds="$(sed -n 's/.*Started MarketApplication in .* (process running for \([0-9.]*\)).*/\1/p' "$log")"
+  rss="$(ps -o rss= -p "$pid" | tr -d ' ')"
+  heap="$(jcmd "$pid" GC.heap_info 2>/dev/null | sed -n 's/.*total [0-9]*K, used \([0-9]*\)K.*/\1/p' | head -n 1)"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$mode $seconds $((rss / 1024)) $((${heap:-0} / 1024))" >>"$WORK/samples.txt"
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+PROD=(-Dspring.profiles.active=prod -cp "$CLASSPATH")
+AOT=(-Dspring.aot.enabled=true)
+CDS_ARCHIVE="$WORK/market.jsa"
+
+echo "Training the class data sharing archive"
+# shellcheck disable=SC2086
+java $JAVA_OPTS -XX:ArchiveClassesAtExit="$CDS_ARCHIVE" -Dspring.context.exit=onRefresh \
+  "${AOT[@]}" "${PROD[@]}" "$MAIN_CLASS" "${APP_ARGS[@]}" >"$WORK/cds-training.log" 2>&1
+
+: >"$WORK/samples.txt"
+# One discarded start per mode warms the file system cache
+for run in $(seq 0 "$RUNS"); do
+  echo "Run $run of $RUNS"
+  measure default "$run" -jar "$JAR"
+  measure prod "$run" "${PROD[@]}" "$MAIN_CLASS"
+  measure prod-aot "$run" "${AOT[@]}" "${PROD[@]}" "$MAIN_CLASS"
+  measure prod-aot-cds "$run" -XX:SharedArchiveFile="$CDS_ARCHIVE" "${AOT[@]}" "${PROD[@]}" "$MAIN_CLASS"
+  if [[ "$run" == "0" ]]; then
+    : >"$WORK/samples.txt"
+  fi
+done
+
+{
+  echo "Median of $RUNS starts, $(java -version 2>&1 | head -n 1), JAVA_OPTS=\"$JAVA_OPTS\""
+  echo
+  echo "| mode | startup (s) | RSS (MB) | heap used (MB) |"
+  echo "|------|-------------|----------|----------------|"
+  for mode in default prod prod-aot prod-aot-cds; do
+    seconds="$(awk -v m="$mode" '$1 == m { print $2 }' "$WORK/samples.txt" | median)"
+    rss="$(awk -v m="$mode" '$1 == m { print $3 }' "$WORK/samples.txt" | median)"
+    heap="$(awk -v m="$mode" '$1 == m { print $4 }' "$WORK/samples.txt" | median)"
+    echo "| $mode | $seconds | $rss | $heap |"
+  done
+} | tee "$WORK/results.md"
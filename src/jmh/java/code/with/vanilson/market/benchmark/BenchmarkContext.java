@@ -0,0 +1,32 @@
+package code.with.vanilson.market.benchmark;
+
+import code.with.vanilson.market.MarketApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * BenchmarkContext
+ * <p>
+ * Starts the application without the web tier against the embedded H2 database of the
+ * {@code test} profile, so the benchmarks measure the same service and repository code that
+ * runs in production.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(MarketApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("logging.level.root=WARN", "spring.devtools.restart.enabled=false")
+                .run(args);
+    }
+}
@@ -0,0 +1,89 @@
+package code.with.vanilson.market.benchmark;
+
+import code.with.vanilson.market.cart.CartResponse;
+import code.with.vanilson.market.cart.ItemResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CartSerializationBenchmark
+ * <p>
+ * Jackson serialization of large cart responses, with the same ObjectMapper defaults Spring Boot
+ * applies to the HTTP message converters, in each representation the API can negotiate: JSON,
+ * CBOR and Smile. {@code serializeCartGzip} adds the gzip compression the server applies above
+ * {@code server.compression.min-response-size}. The bytes on the wire, plain and gzipped, are
+ * printed once per trial.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int itemCount;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    private ObjectMapper objectMapper;
+    private CartResponse cart;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        objectMapper = switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            default -> builder.build();
+        };
+        List<ItemResponse> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new ItemResponse((long) i, "SN" + i, 1L, 0L));
+        }
+        cart = new CartResponse(1L, "Benchmark cart", itemCount, 0L, items);
+        serialized = objectMapper.writeValueAsBytes(cart);
+        System.out.printf("%n%s, %d items: %d bytes, %d bytes gzipped%n", format, itemCount, serialized.length,
+                gzip(serialized).length);
+    }
+
+    @Benchmark
+    public byte[] serializeCart() throws IOException {
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public byte[] serializeCartGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(cart));
+    }
+
+    @Benchmark
+    public CartResponse deserializeCart() throws IOException {
+        return objectMapper.readValue(serialized, CartResponse.class);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
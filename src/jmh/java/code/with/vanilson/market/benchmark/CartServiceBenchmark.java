@@ -0,0 +1,77 @@
+package code.with.vanilson.market.benchmark;
+
+import code.with.vanilson.market.cart.Cart;
+import code.with.vanilson.market.cart.CartItemRow;
+import code.with.vanilson.market.cart.CartRepository;
+import code.with.vanilson.market.cart.CartResponse;
+import code.with.vanilson.market.cart.CartService;
+import code.with.vanilson.market.cart.Item;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CartServiceBenchmark
+ * <p>
+ * Cart creation for growing item counts, and cart lookup through the cache and straight from
+ * the repository.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    @Param({"1", "50", "200"})
+    int itemCount;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private CartRepository cartRepository;
+    private Long cartId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cartService = context.getBean(CartService.class);
+        cartRepository = context.getBean(CartRepository.class);
+        cartId = cartService.createCartWithItems(newCart()).id();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CartResponse createCartWithItems() {
+        return cartService.createCartWithItems(newCart());
+    }
+
+    @Benchmark
+    public Optional<CartResponse> findCartById() {
+        return cartService.findCartById(cartId);
+    }
+
+    @Benchmark
+    public List<CartItemRow> findCartByIdUncached() {
+        return cartRepository.findRowsById(cartId);
+    }
+
+    private Cart newCart() {
+        Cart cart = new Cart("Benchmark cart");
+        for (int i = 0; i < itemCount; i++) {
+            cart.getItems().add(new Item("SN" + i, null));
+        }
+        return cart;
+    }
+}
@@ -0,0 +1,84 @@
+package code.with.vanilson.market.benchmark;
+
+import code.with.vanilson.market.cart.Cart;
+import code.with.vanilson.market.cart.CartService;
+import code.with.vanilson.market.cart.Item;
+import code.with.vanilson.market.cart.ItemResponse;
+import code.with.vanilson.market.cart.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionPoolBenchmark
+ * <p>
+ * Item creation from 32 threads for different connection pool sizes. Every thread adds items
+ * to its own cart, so the pool rather than the cart row lock is what the threads wait for.
+ * {@code hikari} compares Hikari's defaults with the settings of application.yml, leak
+ * detection included.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    @Param({"4", "10", "32"})
+    int poolSize;
+
+    @Param({"defaults", "tuned"})
+    String hikari;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private CartService cartService;
+
+    @State(Scope.Thread)
+    public static class ThreadCart {
+        private Cart cart;
+        private long counter;
+
+        @Setup(Level.Trial)
+        public void setUp(ConnectionPoolBenchmark benchmark) {
+            Long id = benchmark.cartService.createCartWithItems(new Cart("Pool benchmark")).id();
+            cart = new Cart("Pool benchmark");
+            cart.setId(id);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] pool = {"--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.datasource.hikari.minimum-idle=" + poolSize};
+        String[] defaults = {"--spring.datasource.hikari.connection-timeout=30000",
+                "--spring.datasource.hikari.leak-detection-threshold=0"};
+        context = BenchmarkContext.start("tuned".equals(hikari) ? pool : concat(pool, defaults));
+        itemService = context.getBean(ItemService.class);
+        cartService = context.getBean(CartService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] args = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, args, first.length, second.length);
+        return args;
+    }
+
+    @Benchmark
+    public ItemResponse createItem(ThreadCart state) {
+        return itemService.createItem(new Item("PB" + state.counter++, state.cart));
+    }
+}
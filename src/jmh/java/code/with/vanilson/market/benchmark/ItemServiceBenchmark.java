@@ -0,0 +1,58 @@
+package code.with.vanilson.market.benchmark;
+
+import code.with.vanilson.market.cart.Cart;
+import code.with.vanilson.market.cart.CartResponse;
+import code.with.vanilson.market.cart.CartService;
+import code.with.vanilson.market.cart.Item;
+import code.with.vanilson.market.cart.ItemResponse;
+import code.with.vanilson.market.cart.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemServiceBenchmark
+ * <p>
+ * Updates of a single item, alternating its serial number so every call really writes.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private Cart cart;
+    private Long itemId;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        itemService = context.getBean(ItemService.class);
+        Cart seed = new Cart("Benchmark cart");
+        seed.getItems().add(new Item("SN0", null));
+        CartResponse created = context.getBean(CartService.class).createCartWithItems(seed);
+        cart = new Cart(created.name());
+        cart.setId(created.id());
+        itemId = created.items().get(0).id();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ItemResponse updateItem() {
+        return itemService.updateItem(itemId, new Item("SN" + (counter++ & 1), cart));
+    }
+}
@@ -0,0 +1,108 @@
+package code.with.vanilson.market.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AdaptiveConcurrencyLimit
+ * <p>
+ * The number of write requests allowed to run at once, adjusted to their latency, most of
+ * which is spent in the database or waiting for one of its connections. Every
+ * {@code window} the average latency of the requests that finished is compared with its
+ * long-term average, and the limit moves a fifth of the way to a target: the limit scaled by
+ * how much faster the requests usually are (at most halved), plus its square root as headroom
+ * while the limit is actually used. Requests getting slower than usual shrink the limit, by up
+ * to a tenth per window; requests at their usual speed let it grow. The long-term average
+ * follows lasting changes, so a database that has become slower for good is eventually given
+ * the old concurrency back.
+ * <p>
+ * Admission and release are lock-free; the limit is recomputed by whichever request
+ * finishes first once a window is over.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+final class AdaptiveConcurrencyLimit {
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_TERM_WEIGHT = 0.05;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final AtomicLong windowEnd;
+    private volatile double limit;
+    private volatile double longTermLatency;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long windowNanos, long now) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = windowNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.windowEnd = new AtomicLong(now + windowNanos);
+    }
+
+    /**
+     * @return whether the request may run; if so it must be {@link #release released}
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends a request admitted by {@link #tryAcquire} that took {@code latencyNanos}, at
+     * {@code now}.
+     */
+    void release(long latencyNanos, long now) {
+        inFlight.decrementAndGet();
+        latencySum.add(latencyNanos);
+        samples.increment();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            update();
+        }
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void update() {
+        long count = samples.sumThenReset();
+        long sum = latencySum.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (count == 0) {
+            return;
+        }
+        double latency = (double) sum / count;
+        double longTerm = longTermLatency == 0 ? latency
+                : longTermLatency * (1 - LONG_TERM_WEIGHT) + latency * LONG_TERM_WEIGHT;
+        longTermLatency = longTerm;
+
+        double current = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, longTerm / latency));
+        // Requests that never fill the limit say nothing about whether a higher one is safe
+        double headroom = peak >= current / 2 ? Math.sqrt(current) : 0;
+        double target = current * gradient + headroom;
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
@@ -0,0 +1,64 @@
+package code.with.vanilson.market.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * AdmissionConfig
+ * <p>
+ * Puts {@link AdmissionFilter} in front of the cart and item endpoints, ahead of every other
+ * filter so a shed request costs nothing else, and publishes the state of the concurrency
+ * limit as the {@code market.admission.limit}, {@code market.admission.in.flight} and
+ * {@code market.admission.clients} gauges.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "market.admission", name = "enabled", havingValue = "true")
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(
+            MeterRegistry meterRegistry,
+            @Value("${market.admission.rate:20}") double rate,
+            @Value("${market.admission.burst:40}") int burst,
+            @Value("${market.admission.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${market.admission.max-clients:100000}") long maxClients,
+            @Value("${market.admission.initial-limit:20}") int initialLimit,
+            @Value("${market.admission.min-limit:2}") int minLimit,
+            @Value("${market.admission.max-limit:100}") int maxLimit,
+            @Value("${market.admission.window:100ms}") Duration window) {
+        if (rate <= 0 || burst < 1 || minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalStateException("market.admission needs a positive rate, a burst and a min-limit of at "
+                    + "least 1 and a max-limit of at least min-limit");
+        }
+        ClientBuckets buckets = new ClientBuckets(rate, burst, maxClients);
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                window.toNanos(), System.nanoTime());
+        Gauge.builder("market.admission.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("Write requests allowed to run at once")
+                .register(meterRegistry);
+        Gauge.builder("market.admission.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Write requests running")
+                .register(meterRegistry);
+        Gauge.builder("market.admission.clients", buckets, ClientBuckets::size)
+                .description("Clients with a token bucket")
+                .register(meterRegistry);
+
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionFilter(buckets, limit, apiKeyHeader, meterRegistry));
+        registration.addUrlPatterns("/api/carts/*", "/api/items/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
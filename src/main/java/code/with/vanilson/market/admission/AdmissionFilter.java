@@ -0,0 +1,105 @@
+package code.with.vanilson.market.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdmissionFilter
+ * <p>
+ * Sheds write requests before they reach the controllers and the database. A client, told
+ * apart by its {@code api-key-header} or else its address, may send {@code rate} writes per
+ * second with bursts of {@code burst}; beyond that it gets 429 with the seconds until its next
+ * write is accepted in {@code Retry-After}. The address is the remote address as resolved by
+ * {@code server.forward-headers-strategy=native}: behind a trusted proxy it is the client in
+ * {@code X-Forwarded-For}, not the proxy, while the header of an untrusted sender is ignored.
+ * Admitted writes then run under the {@link AdaptiveConcurrencyLimit}, which every client
+ * shares; above it requests get 429 with a {@code Retry-After} of one second. Reads are never
+ * shed.
+ * <p>
+ * Every write is counted in {@code market.admission.requests}, tagged with its outcome.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final ClientBuckets buckets;
+    private final AdaptiveConcurrencyLimit limit;
+    private final String apiKeyHeader;
+    private final Counter admitted;
+    private final Counter rateLimited;
+    private final Counter concurrencyLimited;
+
+    AdmissionFilter(ClientBuckets buckets, AdaptiveConcurrencyLimit limit, String apiKeyHeader,
+                    MeterRegistry meterRegistry) {
+        this.buckets = buckets;
+        this.limit = limit;
+        this.apiKeyHeader = apiKeyHeader;
+        this.admitted = outcome(meterRegistry, "admitted");
+        this.rateLimited = outcome(meterRegistry, "rate_limited");
+        this.concurrencyLimited = outcome(meterRegistry, "concurrency_limited");
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("market.admission.requests")
+                .description("Write requests by admission outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !WRITE_METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long wait = buckets.tryTake(clientKey(request), System.nanoTime());
+        if (wait > 0) {
+            rateLimited.increment();
+            // Rounded up, a client retrying on time always finds a token
+            long retryAfter = (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            reject(response, retryAfter, "Too many write requests from this client");
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            concurrencyLimited.increment();
+            reject(response, 1, "Too many write requests in progress");
+            return;
+        }
+        admitted.increment();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long end = System.nanoTime();
+            limit.release(end - start, end);
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        // Prefixed so an API key cannot pass for an address
+        return apiKey == null || apiKey.isBlank() ? "address:" + request.getRemoteAddr() : "key:" + apiKey;
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), message);
+    }
+}
@@ -0,0 +1,45 @@
+package code.with.vanilson.market.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * ClientBuckets
+ * <p>
+ * One {@link TokenBucket} per client, created on its first request. A bucket left alone long
+ * enough to fill up is no different from a new one, so it is dropped after that time; the
+ * number of buckets is bounded as well, since client keys come from the requests.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+final class ClientBuckets {
+    private final double rate;
+    private final int burst;
+    private final Cache<String, TokenBucket> buckets;
+
+    ClientBuckets(double rate, int burst, long maxClients) {
+        this.rate = rate;
+        this.burst = burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(new TokenBucket(rate, burst, 0).refillNanos()))
+                .build();
+    }
+
+    /**
+     * Takes a token from the bucket of {@code client} at {@code now}.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryTake(String client, long now) {
+        return buckets.get(client, key -> new TokenBucket(rate, burst, now)).tryTake(now);
+    }
+
+    long size() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,54 @@
+package code.with.vanilson.market.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucket
+ * <p>
+ * A bucket of {@code capacity} tokens refilled at {@code rate} tokens per second, held as a
+ * single timestamp so that taking a token is one compare-and-set: the time at which the
+ * bucket is full again. Taking a token moves that time one refill interval later, from now
+ * if the bucket is already full; a token is available as long as the time stays within
+ * {@code capacity} intervals from now.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+final class TokenBucket {
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(double rate, int capacity, long now) {
+        this.nanosPerToken = (long) (1_000_000_000L / rate);
+        this.capacityNanos = capacity * nanosPerToken;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token at {@code now}, a {@link System#nanoTime()} reading.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until one is available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + nanosPerToken;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds an empty bucket takes to fill up, after which it is as good as a new one.
+     */
+    long refillNanos() {
+        return capacityNanos;
+    }
+}
@@ -0,0 +1,69 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.datasource.ReplicaReads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+/**
+ * CacheConfig
+ * <p>
+ * Read-through caches in front of {@link CartService#findCartById} and
+ * {@link ItemService#findItemById}. Size and TTL eviction come from
+ * {@code spring.cache.caffeine.spec}; hit, miss and eviction counts are published by Spring Boot
+ * as {@code cache.gets} / {@code cache.evictions} on the Prometheus registry.
+ * <p>
+ * Evictions and puts made in a transaction wait for it to commit: evicted before the commit,
+ * the entry could be filled again with the row the write is about to replace, and a response
+ * cached with its version as ETag would then never match the version column again. A value
+ * whose load overlapped an eviction is not cached either, see {@link LoadGuardedCaffeineCache}.
+ * <p>
+ * With read replicas, a read that went to a replica is returned but not cached
+ * ({@link #UNLESS_REPLICA_READ}): a replica that is behind would otherwise leave an old cart or
+ * item in the cache, served to every client including those pinned to the primary.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Configuration
+@EnableCaching
+@Import(ReplicaReads.class)
+public class CacheConfig {
+    public static final String CARTS = "carts";
+    public static final String ITEMS = "items";
+    /**
+     * {@code unless} condition of the read-through caches, see {@link ReplicaReads}.
+     */
+    public static final String UNLESS_REPLICA_READ = "@replicaReads.isReplicaRead()";
+
+    /**
+     * Replaces the cache manager of Spring Boot, whose Caffeine caches cannot be made
+     * transaction aware, and reads the same {@code spring.cache} properties.
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${spring.cache.cache-names:carts,items}") List<String> cacheNames,
+                                     @Value("${spring.cache.caffeine.spec:}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name,
+                                               com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new TransactionAwareCacheDecorator(
+                        new LoadGuardedCaffeineCache(name, cache, isAllowNullValues()));
+            }
+        };
+        if (!spec.isEmpty()) {
+            cacheManager.setCacheSpecification(spec);
+        }
+        cacheManager.setCacheNames(cacheNames);
+        return cacheManager;
+    }
+}
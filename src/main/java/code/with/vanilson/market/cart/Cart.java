@@ -1,8 +1,9 @@
 package code.with.vanilson.market.cart;
 
+import code.with.vanilson.market.datasource.ShardedSequence;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -19,16 +20,31 @@ import java.util.List;
 @Entity
 @Table(name = "tb_carts")
 @NoArgsConstructor
-@AllArgsConstructor
 @Data
 public class Cart {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedSequence("tb_carts_seq")
     private Long id;
 
     @Column(nullable = false)
     private String name;
 
+    /**
+     * Maintained by the repository with relative updates in the same transaction as every
+     * item write, never written from the entity once the cart exists.
+     */
+    @Column(name = "item_count", nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int itemCount;
+
+    /**
+     * Bumped by the repository together with the item counter, so it changes whenever the
+     * cart or any of its items does. Served as the ETag of the cart.
+     */
+    @Column(nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<Item> items = new ArrayList<>();
@@ -36,4 +52,10 @@ public class Cart {
     public Cart(String name) {
         this.name = name;
     }
+
+    public Cart(Long id, String name, List<Item> items) {
+        this.id = id;
+        this.name = name;
+        this.items = items;
+    }
 }
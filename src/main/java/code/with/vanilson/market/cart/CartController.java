@@ -1,9 +1,14 @@
 package code.with.vanilson.market.cart;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -18,33 +23,102 @@ import java.util.List;
 @RequestMapping("/api/carts")
 public class CartController {
     private final CartService cartService;
+    private final NdjsonWriter ndjsonWriter;
 
-    public CartController(CartService cartService) {
+    public CartController(CartService cartService, ObjectMapper objectMapper) {
         this.cartService = cartService;
+        this.ndjsonWriter = new NdjsonWriter(objectMapper);
     }
 
     @PostMapping(value = "create-cart")
-    public ResponseEntity<Cart> createCart(@RequestBody @Valid Cart cart) {
+    public ResponseEntity<CartResponse> createCart(@RequestBody @Valid Cart cart) {
         // Handle the creation of the cart along with its items
-        Cart createdCart = cartService.createCartWithItems(cart);
+        CartResponse createdCart = cartService.createCartWithItems(cart);
         return new ResponseEntity<>(createdCart, HttpStatus.CREATED);
     }
 
+    /**
+     * Returns the cart with its version as a weak ETag. When {@code If-None-Match} still lists
+     * that tag the answer is 304, decided from the version column alone.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Cart> getCartById(@PathVariable Long id) {
+    public ResponseEntity<CartResponse> getCartById(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                    String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String etag = ETags.of(cartService.findCartVersion(id));
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
         return cartService.findCartById(id)
-                .map(ResponseEntity::ok)
+                .map(cart -> ResponseEntity.ok().eTag(ETags.of(cart.version())).body(cart))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Lists carts. Without paging parameters the whole table is returned; with {@code after}
+     * and/or {@code size} a keyset page is returned and the next page is linked in the
+     * {@code Link} header.
+     */
     @GetMapping
-    public List<Cart> getAllCarts() {
-        return cartService.getAllCarts();
+    public ResponseEntity<List<CartResponse>> getAllCarts(@RequestParam(required = false) Long after,
+                                                          @RequestParam(required = false) Integer size) {
+        if (after == null && size == null) {
+            return ResponseEntity.ok(cartService.getAllCarts());
+        }
+        int pageSize = KeysetPages.pageSize(size);
+        List<CartResponse> carts = cartService.getCartsPage(after == null ? 0L : after, pageSize);
+        return KeysetPages.page(carts, pageSize, CartResponse::id);
     }
 
+    /**
+     * Lists carts with their item counts but without their items, paged like
+     * {@link #getAllCarts}.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<List<CartSummary>> getCartSummaries(@RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) Integer size) {
+        if (after == null && size == null) {
+            return ResponseEntity.ok(cartService.getCartSummaries(0L, Limit.unlimited()));
+        }
+        int pageSize = KeysetPages.pageSize(size);
+        List<CartSummary> carts = cartService.getCartSummaries(after == null ? 0L : after, Limit.of(pageSize));
+        return KeysetPages.page(carts, pageSize, CartSummary::id);
+    }
+
+    /**
+     * Number of carts and items, and items per cart, from the item counters alone.
+     */
+    @GetMapping("/summary/totals")
+    public ResponseEntity<CartTotals> getCartTotals() {
+        return ResponseEntity.ok(cartService.getCartTotals());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCarts() {
+        return ndjsonWriter.stream(cartService::streamAllCarts);
+    }
+
+    /**
+     * Deletes the cart and its items in one statement; a missing cart is reported as 404 by the
+     * service.
+     */
     @DeleteMapping("/delete-cart/{id}")
     public ResponseEntity<Void> deleteCart(@PathVariable Long id) {
         cartService.deleteCart(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Deletes many carts and their items in one statement: the carts listed in {@code ids}, or
+     * the carts whose name starts with {@code namePrefix} and/or that hold at most
+     * {@code maxItems} items. Without ids or a filter the request is rejected with 400.
+     */
+    @DeleteMapping
+    public ResponseEntity<CartDeleteResponse> deleteCarts(@RequestParam(required = false) List<Long> ids,
+                                                          @RequestParam(required = false) String namePrefix,
+                                                          @RequestParam(required = false) Integer maxItems) {
+        return ResponseEntity.ok(new CartDeleteResponse(cartService.deleteCarts(ids, namePrefix, maxItems)));
+    }
 }
@@ -0,0 +1,13 @@
+package code.with.vanilson.market.cart;
+
+/**
+ * CartDeleteResponse
+ * <p>
+ * Outcome of a bulk cart deletion: how many carts were deleted, their items went with them.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record CartDeleteResponse(int deleted) {
+}
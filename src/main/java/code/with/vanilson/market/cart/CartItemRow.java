@@ -0,0 +1,15 @@
+package code.with.vanilson.market.cart;
+
+/**
+ * CartItemRow
+ * <p>
+ * One row of a cart left joined with its items, as selected by the cart read queries. The item
+ * columns are {@code null} for a cart without items. See {@link CartResponse#fromRows}.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record CartItemRow(Long cartId, String name, int itemCount, long cartVersion, Long itemId,
+                          String serialNumber, Long version) {
+}
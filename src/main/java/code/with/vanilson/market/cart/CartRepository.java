@@ -1,8 +1,15 @@
 package code.with.vanilson.market.cart;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * CartRepository
  *
@@ -12,4 +19,110 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
+    String CART_ROWS = "select new code.with.vanilson.market.cart.CartItemRow(c.id, c.name, c.itemCount, "
+            + "c.version, i.id, i.serialNumber, i.version) from Cart c left join c.items i ";
+
+    /**
+     * Every cart left joined with its items in a single query, see {@link CartResponse#fromRows}.
+     */
+    @Query(CART_ROWS + "order by c.id, i.id")
+    List<CartItemRow> findAllRows();
+
+    /**
+     * The cart left joined with its items in a single query, empty when the cart does not exist.
+     */
+    @Query(CART_ROWS + "where c.id = :id order by i.id")
+    List<CartItemRow> findRowsById(Long id);
+
+    /**
+     * The version of the cart alone, enough to answer a conditional GET.
+     */
+    @Query("select c.version from Cart c where c.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * Keyset page: the ids of the carts following {@code id}, in id order. The limit cannot
+     * be applied to a query that also fetches the items, so pages are resolved in two steps.
+     */
+    @Query("select c.id from Cart c where c.id > :id order by c.id")
+    List<Long> findIdsAfter(Long id, Limit limit);
+
+    /**
+     * Returns which of the given ids belong to an existing cart, without loading the carts.
+     */
+    @Query("select c.id from Cart c where c.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * The given carts left joined with their items in a single query.
+     */
+    @Query(CART_ROWS + "where c.id in :ids order by c.id, i.id")
+    List<CartItemRow> findRowsByIdIn(Collection<Long> ids);
+
+    /**
+     * Keyset page of cart summaries, read from the item counter without touching the items.
+     */
+    @Query("select new code.with.vanilson.market.cart.CartSummary(c.id, c.name, c.itemCount) "
+            + "from Cart c where c.id > :id order by c.id")
+    List<CartSummary> findSummariesAfter(Long id, Limit limit);
+
+    @Query("select new code.with.vanilson.market.cart.CartTotals(count(c), coalesce(sum(c.itemCount), 0), "
+            + "coalesce(max(c.itemCount), 0)) from Cart c")
+    CartTotals findTotals();
+
+    /**
+     * Deletes the cart in a single statement, without loading it or its items: the items go
+     * with it through {@code ON DELETE CASCADE} on {@code fk_cart}.
+     *
+     * @return the number of deleted carts, 0 when the cart does not exist
+     */
+    @Modifying
+    @Query("delete from Cart c where c.id = :id")
+    int deleteCart(Long id);
+
+    /**
+     * Deletes the given carts and, through the database cascade, their items in a single
+     * statement.
+     */
+    @Modifying
+    @Query("delete from Cart c where c.id in :ids")
+    int deleteCartsByIdIn(Collection<Long> ids);
+
+    /**
+     * Deletes the carts matching every given filter, and their items, in a single statement.
+     * A {@code null} filter matches every cart.
+     *
+     * @param namePattern LIKE pattern on the name, wildcards meant literally escaped with a backslash
+     * @param maxItems    the largest item count of a deleted cart
+     */
+    @Modifying
+    @Query("delete from Cart c where (:namePattern is null or c.name like :namePattern escape '\\') "
+            + "and (:maxItems is null or c.itemCount <= :maxItems)")
+    int deleteCartsMatching(String namePattern, Integer maxItems);
+
+    /**
+     * The ids of the first carts {@link #deleteCartsMatching} would delete, in id order.
+     */
+    @Query("select c.id from Cart c where (:namePattern is null or c.name like :namePattern escape '\\') "
+            + "and (:maxItems is null or c.itemCount <= :maxItems) order by c.id")
+    List<Long> findIdsMatching(String namePattern, Integer maxItems, Limit limit);
+
+    /**
+     * Adds {@code delta} items to the counter of the cart and bumps its version.
+     */
+    @Modifying
+    @Query("update Cart c set c.itemCount = c.itemCount + :delta, c.version = c.version + 1 where c.id = :id")
+    int addToItemCount(Long id, int delta);
+
+    /**
+     * Bumps the versions of {@code fromCartId} and {@code toCartId} and moves an item from the
+     * counter of the first to that of the second. Either may be {@code null}, and both may be
+     * the same cart, whose counter then stays as it is.
+     */
+    @Modifying
+    @Query("update Cart c set c.version = c.version + 1, c.itemCount = c.itemCount "
+            + "+ (case when c.id = :toCartId then 1 else 0 end) "
+            + "- (case when c.id = :fromCartId then 1 else 0 end) "
+            + "where c.id = :fromCartId or c.id = :toCartId")
+    int moveItemCount(Long fromCartId, Long toCartId);
 }
@@ -0,0 +1,45 @@
+package code.with.vanilson.market.cart;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CartResponse
+ * <p>
+ * A cart as returned by the API, with its items.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record CartResponse(Long id, String name, int itemCount, long version, List<ItemResponse> items) {
+
+    public static CartResponse of(Cart cart) {
+        return new CartResponse(cart.getId(), cart.getName(), cart.getItemCount(), cart.getVersion(),
+                cart.getItems().stream().map(ItemResponse::of).toList());
+    }
+
+    /**
+     * Groups rows ordered by cart id into carts, keeping the row order.
+     */
+    public static List<CartResponse> fromRows(List<CartItemRow> rows) {
+        List<CartResponse> carts = new ArrayList<>();
+        int first = 0;
+        for (int i = 1; i <= rows.size(); i++) {
+            if (i == rows.size() || !rows.get(i).cartId().equals(rows.get(first).cartId())) {
+                carts.add(fromCartRows(rows.subList(first, i)));
+                first = i;
+            }
+        }
+        return carts;
+    }
+
+    private static CartResponse fromCartRows(List<CartItemRow> rows) {
+        CartItemRow cart = rows.get(0);
+        List<ItemResponse> items = rows.stream()
+                .filter(row -> row.itemId() != null)
+                .map(row -> new ItemResponse(row.itemId(), row.serialNumber(), row.cartId(), row.version()))
+                .toList();
+        return new CartResponse(cart.cartId(), cart.name(), cart.itemCount(), cart.cartVersion(), items);
+    }
+}
@@ -1,9 +1,23 @@
 package code.with.vanilson.market.cart;
 
+import code.with.vanilson.market.changes.CartChange;
+import code.with.vanilson.market.changes.CartChangeOutbox;
+import code.with.vanilson.market.changes.CartChangeType;
+import code.with.vanilson.market.datasource.FanOut;
+import code.with.vanilson.market.datasource.ShardedBy;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * CartService
@@ -13,43 +27,203 @@ import java.util.Optional;
  * @since 2024-09-06
  */
 @Service
+@Timed(value = "market.service", histogram = true)
 public class CartService {
+    private static final int STREAM_CHUNK_SIZE = 100;
+    static final int MAX_BULK_DELETE_IDS = 1000;
 
     private final CartRepository cartRepository;
-    private final ItemRepository itemRepository;
+    private final SerialNumberIndex serialNumberIndex;
+    private final CartChangeOutbox changeOutbox;
 
-    public CartService(CartRepository cartRepository, ItemRepository itemRepository) {
+    public CartService(CartRepository cartRepository, SerialNumberIndex serialNumberIndex,
+                       CartChangeOutbox changeOutbox) {
         this.cartRepository = cartRepository;
-        this.itemRepository = itemRepository;
+        this.serialNumberIndex = serialNumberIndex;
+        this.changeOutbox = changeOutbox;
     }
 
-    public List<Cart> getAllCarts() {
-        return cartRepository.findAll();
+    @FanOut
+    @Transactional(readOnly = true)
+    public List<CartResponse> getAllCarts() {
+        return CartResponse.fromRows(cartRepository.findAllRows());
     }
 
-    public Optional<Cart> findCartById(Long id) {
-        Optional<Cart> cart = cartRepository.findById(id);
-        if (cart.isPresent()) {
-            return cart;
+    /**
+     * Returns at most {@code size} carts with an id greater than {@code afterId}, in id order,
+     * with their items.
+     */
+    @FanOut(limit = "#size")
+    @Transactional(readOnly = true)
+    public List<CartResponse> getCartsPage(long afterId, int size) {
+        List<Long> ids = cartRepository.findIdsAfter(afterId, Limit.of(size));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return CartResponse.fromRows(cartRepository.findRowsByIdIn(ids));
+    }
+
+    /**
+     * Hands every cart to {@code action}, with its items. Carts are read in keyset chunks (two
+     * queries per chunk) as plain rows, so memory stays flat regardless of the table size.
+     */
+    @FanOut
+    @Transactional(readOnly = true)
+    public void streamAllCarts(Consumer<CartResponse> action) {
+        long afterId = 0L;
+        List<CartResponse> chunk;
+        do {
+            chunk = getCartsPage(afterId, STREAM_CHUNK_SIZE);
+            chunk.forEach(action);
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).id();
+            }
+        } while (chunk.size() == STREAM_CHUNK_SIZE);
+    }
+
+    @ShardedBy("#id")
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CARTS, key = "#id", unless = CacheConfig.UNLESS_REPLICA_READ)
+    public Optional<CartResponse> findCartById(Long id) {
+        List<CartItemRow> rows = cartRepository.findRowsById(id);
+        if (!rows.isEmpty()) {
+            return Optional.of(CartResponse.fromRows(rows).get(0));
         }
         throw new ResourceNotFoundException("Cart not found with id " + id);
 
     }
 
-    public Cart createCartWithItems(Cart cart) {
-        // Save the cart first
-        Cart savedCart = cartRepository.save(cart);
+    /**
+     * The current version of the cart, read without its items.
+     */
+    @ShardedBy("#id")
+    @Transactional(readOnly = true)
+    public long findCartVersion(Long id) {
+        return cartRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found with id " + id));
+    }
 
-        // Assign the saved cart to each item and save them
+    /**
+     * Returns the cart summaries with an id greater than {@code afterId}, in id order, up to
+     * {@code limit}. Item counts come from the per-cart counter, the items are never read.
+     */
+    @FanOut(limit = "#limit.isLimited() ? #limit.max() : null")
+    @Transactional(readOnly = true)
+    public List<CartSummary> getCartSummaries(long afterId, Limit limit) {
+        return cartRepository.findSummariesAfter(afterId, limit);
+    }
+
+    @FanOut(FanOut.Merge.REDUCE)
+    @Transactional(readOnly = true)
+    public CartTotals getCartTotals() {
+        return cartRepository.findTotals();
+    }
+
+    /**
+     * Creates the cart and all of its items in a single transaction. Ids come from pooled
+     * sequences, so Hibernate can group the item inserts into JDBC batches
+     * (see {@code hibernate.jdbc.batch_size}) instead of one round trip per item.
+     */
+    @ShardedBy
+    @Transactional
+    @CachePut(cacheNames = CacheConfig.CARTS, key = "#result.id")
+    public CartResponse createCartWithItems(Cart cart) {
+        // Ids are always generated, any value sent by the client is ignored
+        cart.setId(null);
+        cart.setItemCount(cart.getItems().size());
         for (Item item : cart.getItems()) {
-            item.setCart(savedCart); // Associate each item with the saved cart
-            itemRepository.save(item); // Save each item
+            item.setId(null);
+            item.setVersion(null);
+            item.setCart(cart); // Associate each item with the cart before the cascade
         }
 
-        return savedCart;
+        // Persisting the cart cascades to its items
+        Cart saved = cartRepository.save(cart);
+        serialNumberIndex.put(saved.getItems().stream()
+                .map(item -> new ItemLookup(item.getId(), item.getSerialNumber(), saved.getId()))
+                .toList());
+        changeOutbox.append(createdChanges(saved));
+        return CartResponse.of(saved);
     }
 
+    /**
+     * Deletes the cart with a single statement, the database cascade takes its items. They go
+     * with it, so every cached item is dropped as well.
+     */
+    @ShardedBy("#id")
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)})
     public void deleteCart(Long id) {
-        cartRepository.deleteById(id);
+        if (cartRepository.deleteCart(id) == 0) {
+            throw new ResourceNotFoundException("Cart not found with id " + id);
+        }
+        changeOutbox.append(CartChange.cart(CartChangeType.CART_DELETED, id));
+        serialNumberIndex.removeCart(id);
+    }
+
+    /**
+     * Deletes the carts listed in {@code ids}, or else the carts matching every given filter,
+     * with their items, in a single statement. Missing ids are ignored. When the serial number
+     * index or the change outbox is enabled a filtered delete first reads the matching ids, the
+     * index knows neither cart names nor item counts and the outbox records every deleted cart;
+     * the matches are then read and deleted {@value #MAX_BULK_DELETE_IDS} at a time, so no
+     * statement binds more ids than a delete by id may list.
+     * With shards every shard deletes its own carts in a transaction of its own.
+     *
+     * @param namePrefix start of the name of the carts to delete, not blank
+     * @param maxItems   the largest item count of a cart to delete, 0 for empty carts
+     * @return the number of deleted carts
+     */
+    @FanOut(FanOut.Merge.SUM)
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, allEntries = true)})
+    public int deleteCarts(List<Long> ids, String namePrefix, Integer maxItems) {
+        if (namePrefix != null && namePrefix.isBlank()) {
+            // Would match every cart
+            throw new InvalidCartFilterException("The name prefix of the carts to delete cannot be blank");
+        }
+        boolean filtered = namePrefix != null || maxItems != null;
+        if (ids == null || ids.isEmpty()) {
+            if (!filtered) {
+                throw new InvalidCartFilterException("Give the ids of the carts to delete or a filter");
+            }
+            String namePattern = namePrefix == null ? null : ItemService.likePrefix(namePrefix);
+            if (!serialNumberIndex.isEnabled() && !changeOutbox.isEnabled()) {
+                return cartRepository.deleteCartsMatching(namePattern, maxItems);
+            }
+            int deleted = 0;
+            List<Long> matches;
+            while (!(matches = cartRepository.findIdsMatching(namePattern, maxItems,
+                    Limit.of(MAX_BULK_DELETE_IDS))).isEmpty()) {
+                deleted += deleteCartsByIdIn(matches);
+            }
+            return deleted;
+        } else if (filtered) {
+            throw new InvalidCartFilterException("Give either the ids of the carts to delete or a filter, not both");
+        } else if (ids.size() > MAX_BULK_DELETE_IDS) {
+            throw new InvalidCartFilterException("At most " + MAX_BULK_DELETE_IDS + " carts can be deleted by id at once");
+        }
+        return deleteCartsByIdIn(ids);
+    }
+
+    private int deleteCartsByIdIn(List<Long> ids) {
+        changeOutbox.appendCartsDeleted(ids);
+        int deleted = cartRepository.deleteCartsByIdIn(ids);
+        serialNumberIndex.removeCarts(ids);
+        return deleted;
+    }
+
+    private static List<CartChange> createdChanges(Cart cart) {
+        List<CartChange> changes = new ArrayList<>(cart.getItems().size() + 1);
+        changes.add(CartChange.cart(CartChangeType.CART_CREATED, cart.getId()));
+        for (Item item : cart.getItems()) {
+            changes.add(CartChange.item(CartChangeType.ITEM_CREATED, item.getId(), item.getSerialNumber(),
+                    cart.getId()));
+        }
+        return changes;
     }
 }
@@ -0,0 +1,13 @@
+package code.with.vanilson.market.cart;
+
+/**
+ * CartSummary
+ * <p>
+ * A cart without its items, with the number of items it holds.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record CartSummary(Long id, String name, int itemCount) {
+}
@@ -0,0 +1,29 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.datasource.Mergeable;
+
+/**
+ * CartTotals
+ * <p>
+ * Aggregates over every cart, computed from the per-cart item counters.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record CartTotals(long carts, long items, int maxItemsPerCart, double averageItemsPerCart)
+        implements Mergeable<CartTotals> {
+
+    public CartTotals(Long carts, Long items, Integer maxItemsPerCart) {
+        this(carts, items, maxItemsPerCart, carts == 0 ? 0 : (double) items / carts);
+    }
+
+    /**
+     * The totals over the carts of both, as when they are counted on separate shards.
+     */
+    @Override
+    public CartTotals merge(CartTotals other) {
+        return new CartTotals(carts + other.carts, items + other.items,
+                Math.max(maxItemsPerCart, other.maxItemsPerCart));
+    }
+}
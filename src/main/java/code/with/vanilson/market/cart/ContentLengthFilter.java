@@ -0,0 +1,39 @@
+package code.with.vanilson.market.cart;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * ContentLengthFilter
+ * <p>
+ * Buffers API responses so they go out with a {@code Content-Length}. The message converters
+ * stream their output without one, and Tomcat then compresses every response whatever
+ * {@code server.compression.min-response-size} says. The streaming endpoints (NDJSON listings
+ * and the change feed) write asynchronously for as long as they run and are left alone.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public class ContentLengthFilter extends OncePerRequestFilter {
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.endsWith("/stream") || path.endsWith("/changes");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, cachingResponse);
+        cachingResponse.copyBodyToResponse();
+    }
+}
@@ -0,0 +1,42 @@
+package code.with.vanilson.market.cart;
+
+/**
+ * ETags
+ * <p>
+ * Entity tags derived from the version columns, so a conditional GET can be answered by
+ * reading the version alone. They are weak: one version has several representations, JSON,
+ * CBOR or Smile, gzipped or not (see {@link PayloadFormatConfig}), that are not byte for byte
+ * equal; Tomcat would not compress a response with a strong tag either.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header lists {@code etag}. Tags are compared weakly, as
+     * required for GET, and {@code *} matches any tag.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = opaque(candidate.trim());
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
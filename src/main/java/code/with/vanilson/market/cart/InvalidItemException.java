@@ -0,0 +1,18 @@
+package code.with.vanilson.market.cart;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * InvalidItemException
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidItemException extends RuntimeException {
+    public InvalidItemException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,10 @@
 package code.with.vanilson.market.cart;
 
+import code.with.vanilson.market.datasource.ShardedSequence;
 import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -17,12 +19,13 @@ import lombok.NoArgsConstructor;
 @Table(name = "tb_items")
 @NoArgsConstructor
 @Data
-@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedSequence("tb_items_seq")
     private Long id;
 
+    @NotBlank
+    @Size(max = 20)
     @Column(name = "serial_number", length = 20, nullable = false)
     private String serialNumber;
 
@@ -31,6 +34,9 @@ public class Item {
     @JsonBackReference
     private Cart cart;
 
+    @Version
+    private Long version;
+
     public Item(Long id, String serialNumber, Cart cart) {
         this.id = id;
         this.serialNumber = serialNumber;
@@ -1,10 +1,16 @@
 package code.with.vanilson.market.cart;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -19,48 +25,105 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemImportService itemImportService;
+    private final NdjsonWriter ndjsonWriter;
 
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, ItemImportService itemImportService, ObjectMapper objectMapper) {
         this.itemService = itemService;
+        this.itemImportService = itemImportService;
+        this.ndjsonWriter = new NdjsonWriter(objectMapper);
     }
 
+    /**
+     * Lists items. Without paging parameters the whole table is returned; with {@code after}
+     * and/or {@code size} a keyset page is returned and the next page is linked in the
+     * {@code Link} header.
+     */
     @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        return ResponseEntity.ok(itemService.getAllItems());
+    public ResponseEntity<List<ItemResponse>> getAllItems(@RequestParam(required = false) Long after,
+                                                          @RequestParam(required = false) Integer size) {
+        if (after == null && size == null) {
+            return ResponseEntity.ok(itemService.getAllItems());
+        }
+        int pageSize = KeysetPages.pageSize(size);
+        List<ItemResponse> items = itemService.getItemsPage(after == null ? 0L : after, pageSize);
+        return KeysetPages.page(items, pageSize, ItemResponse::id);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllItems() {
+        return ndjsonWriter.stream(itemService::streamAllItems);
     }
 
+    /**
+     * Returns the item with its version as a weak ETag, and 304 when {@code If-None-Match}
+     * still lists it, like {@link CartController#getCartById}.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getItemById(@PathVariable Long id) {
+    public ResponseEntity<ItemResponse> getItemById(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                    String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String etag = ETags.of(itemService.findItemVersion(id));
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
         var item = itemService.findItemById(id);
-        return item.map(ResponseEntity::ok)
+        return item.map(response -> ResponseEntity.ok().eTag(ETags.of(response.version())).body(response))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Scanner lookup: every item carrying the serial number, 404 when there is none.
+     */
+    @GetMapping("/serial/{serialNumber}")
+    public ResponseEntity<List<ItemLookup>> getItemsBySerialNumber(@PathVariable String serialNumber) {
+        return ResponseEntity.ok(itemService.findBySerialNumber(serialNumber));
+    }
+
+    /**
+     * Items whose serial number starts with {@code prefix}, in serial number order.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ItemLookup>> searchItems(@RequestParam String prefix,
+                                                        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(itemService.searchBySerialNumberPrefix(prefix, KeysetPages.pageSize(limit)));
+    }
+
     @PostMapping("/create-item")
-    public ResponseEntity<Item> createItem(@RequestBody @Valid Item item) {
-        Item createdItem = itemService.createItem(item);
+    public ResponseEntity<ItemResponse> createItem(@RequestBody @Valid Item item) {
+        ItemResponse createdItem = itemService.createItem(item);
         if (createdItem == null) {
             return ResponseEntity.badRequest().build();
         }
         return new ResponseEntity<>(createdItem, HttpStatus.CREATED);
     }
 
+    /**
+     * Imports many items at once from a JSON array or an NDJSON body, each row shaped like the
+     * create-item payload. The body is parsed incrementally; the response reports every row.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ItemImportResponse> importItems(InputStream body) throws IOException {
+        return ResponseEntity.ok(itemImportService.importItems(body));
+    }
+
+    /**
+     * Updates the item in one statement; a missing item is reported as 404 by the service, and
+     * a stale {@code version} in the body as 409.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<Item> updateItem(@PathVariable Long id, @RequestBody @Valid Item item) {
-        var existingItem = itemService.findItemById(id);
-        if (existingItem.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-        Item updatedItem = itemService.updateItem(id, item);
+    public ResponseEntity<ItemResponse> updateItem(@PathVariable Long id, @RequestBody @Valid Item item) {
+        ItemResponse updatedItem = itemService.updateItem(id, item);
         return ResponseEntity.ok(updatedItem);
     }
 
+    /**
+     * Deletes the item in one statement; a missing item is reported as 404 by the service.
+     */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteItem(@PathVariable Long id) {
-        var item = itemService.findItemById(id);
-        if (item.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
         itemService.deleteItem(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
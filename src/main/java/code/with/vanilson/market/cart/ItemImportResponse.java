@@ -0,0 +1,20 @@
+package code.with.vanilson.market.cart;
+
+import java.util.List;
+
+/**
+ * ItemImportResponse
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record ItemImportResponse(int created, int failed, List<ItemImportResult> results) {
+
+    static ItemImportResponse of(List<ItemImportResult> results) {
+        int created = (int) results.stream()
+                .filter(result -> result.status() == ItemImportResult.Status.CREATED)
+                .count();
+        return new ItemImportResponse(created, results.size() - created, results);
+    }
+}
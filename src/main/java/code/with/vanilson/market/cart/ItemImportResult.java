@@ -0,0 +1,27 @@
+package code.with.vanilson.market.cart;
+
+/**
+ * ItemImportResult
+ * <p>
+ * Outcome of one row of a bulk item import; {@code index} is the zero based position of the
+ * row in the request body.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record ItemImportResult(int index, Status status, Long id, String error) {
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    static ItemImportResult created(int index, Long id) {
+        return new ItemImportResult(index, Status.CREATED, id, null);
+    }
+
+    static ItemImportResult failed(int index, String error) {
+        return new ItemImportResult(index, Status.FAILED, null, error);
+    }
+}
@@ -0,0 +1,236 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.changes.CartChange;
+import code.with.vanilson.market.changes.CartChangeOutbox;
+import code.with.vanilson.market.changes.CartChangeType;
+import code.with.vanilson.market.datasource.ShardContext;
+import code.with.vanilson.market.datasource.ShardIds;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * ItemImportService
+ * <p>
+ * Bulk item import. The request body is parsed one row at a time, either as a JSON array or as
+ * newline delimited JSON, where every row has the shape accepted by
+ * {@code POST /api/items/create-item}. Rows are imported in chunks: each chunk resolves its
+ * carts with one query and is inserted in JDBC batches inside its own transaction, one per
+ * shard when the carts are sharded.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Service
+@Timed(value = "market.service", histogram = true)
+public class ItemImportService {
+    /**
+     * Rows per transaction, a multiple of {@code hibernate.jdbc.batch_size}.
+     */
+    static final int CHUNK_SIZE = 500;
+    private static final int SERIAL_NUMBER_LENGTH = 20;
+
+    private final ObjectReader rowReader;
+    private final CartRepository cartRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final SerialNumberIndex serialNumberIndex;
+    private final CartChangeOutbox changeOutbox;
+
+    public ItemImportService(ObjectMapper objectMapper, CartRepository cartRepository, EntityManager entityManager,
+                             TransactionTemplate transactionTemplate, CacheManager cacheManager,
+                             SerialNumberIndex serialNumberIndex, CartChangeOutbox changeOutbox) {
+        this.rowReader = objectMapper.readerFor(Item.class);
+        this.cartRepository = cartRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.serialNumberIndex = serialNumberIndex;
+        this.changeOutbox = changeOutbox;
+    }
+
+    /**
+     * Imports every row of {@code body}. Rows that cannot be bound or fail validation are
+     * reported and skipped; malformed JSON stops the import after the rows read so far.
+     */
+    public ItemImportResponse importItems(InputStream body) throws IOException {
+        List<ItemImportResult> results = new ArrayList<>();
+        List<Item> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+        try (MappingIterator<Item> rows = rowReader.readValues(body)) {
+            while (hasNext(rows, index, results)) {
+                try {
+                    chunk.add(rows.nextValue());
+                } catch (JsonMappingException e) {
+                    // Keep the row position so the results line up with the body
+                    chunk.add(null);
+                }
+                index++;
+                if (chunk.size() == CHUNK_SIZE) {
+                    results.addAll(importChunk(chunk, index - chunk.size()));
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk, index - chunk.size()));
+        }
+        results.sort(Comparator.comparingInt(ItemImportResult::index));
+        return ItemImportResponse.of(results);
+    }
+
+    /**
+     * Imports one chunk of rows in a single transaction per shard; {@code firstIndex} is the
+     * position of the first row. A {@code null} row stands for a row that could not be bound.
+     */
+    public List<ItemImportResult> importChunk(List<Item> rows, int firstIndex) {
+        Map<Integer, List<Integer>> positionsByShard = new TreeMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Item row = rows.get(i);
+            // Invalid rows fail on any shard, shard 0 reports them
+            int shard = validateRow(row) == null ? ShardIds.shardOf(row.getCart().getId()) : 0;
+            positionsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(i);
+        }
+        if (positionsByShard.size() == 1) {
+            return importOnShard(positionsByShard.keySet().iterator().next(), rows, i -> firstIndex + i);
+        }
+        List<ItemImportResult> results = new ArrayList<>(rows.size());
+        positionsByShard.forEach((shard, positions) -> results.addAll(importOnShard(shard,
+                positions.stream().map(rows::get).toList(), i -> firstIndex + positions.get(i))));
+        results.sort(Comparator.comparingInt(ItemImportResult::index));
+        return results;
+    }
+
+    /**
+     * Imports rows of a single shard in one transaction; {@code index} maps the position of a
+     * row in {@code rows} to its position in the import.
+     */
+    private List<ItemImportResult> importOnShard(int shard, List<Item> rows, IntUnaryOperator index) {
+        Integer previousShard = ShardContext.swap(shard);
+        try {
+            return importRows(rows, index);
+        } finally {
+            ShardContext.swap(previousShard);
+        }
+    }
+
+    private List<ItemImportResult> importRows(List<Item> rows, IntUnaryOperator index) {
+        List<ItemImportResult> results = new ArrayList<>(rows.size());
+        Map<Long, Integer> touchedCarts = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Long> existingCarts = existingCarts(rows);
+                List<ItemLookup> created = new ArrayList<>(rows.size());
+                for (int i = 0; i < rows.size(); i++) {
+                    Item row = rows.get(i);
+                    String error = validate(row, existingCarts);
+                    if (error != null) {
+                        results.add(ItemImportResult.failed(index.applyAsInt(i), error));
+                        continue;
+                    }
+                    Long cartId = row.getCart().getId();
+                    Item item = new Item(row.getSerialNumber(), entityManager.getReference(Cart.class, cartId));
+                    entityManager.persist(item);
+                    touchedCarts.merge(cartId, 1, Integer::sum);
+                    created.add(new ItemLookup(item.getId(), item.getSerialNumber(), cartId));
+                    results.add(ItemImportResult.created(index.applyAsInt(i), item.getId()));
+                }
+                touchedCarts.forEach(cartRepository::addToItemCount);
+                changeOutbox.append(created.stream()
+                        .map(item -> CartChange.item(CartChangeType.ITEM_CREATED, item.id(), item.serialNumber(),
+                                item.cartId()))
+                        .toList());
+                entityManager.flush();
+                entityManager.clear();
+                serialNumberIndex.put(created);
+            });
+        } catch (DataAccessException | PersistenceException e) {
+            // The whole chunk was rolled back, so none of its rows were created
+            List<ItemImportResult> failed = new ArrayList<>(rows.size());
+            for (ItemImportResult result : results) {
+                failed.add(result.status() == ItemImportResult.Status.CREATED
+                        ? ItemImportResult.failed(result.index(), "Chunk rolled back: " + e.getMessage())
+                        : result);
+            }
+            return failed;
+        }
+        evictCarts(touchedCarts.keySet());
+        return results;
+    }
+
+    private boolean hasNext(MappingIterator<Item> rows, int index, List<ItemImportResult> results) throws IOException {
+        try {
+            return rows.hasNextValue();
+        } catch (JsonProcessingException e) {
+            results.add(ItemImportResult.failed(index, "Malformed JSON, import stopped: " + e.getOriginalMessage()));
+            return false;
+        }
+    }
+
+    private Set<Long> existingCarts(List<Item> rows) {
+        Set<Long> cartIds = new HashSet<>();
+        for (Item row : rows) {
+            if (row != null && row.getCart() != null && row.getCart().getId() != null) {
+                cartIds.add(row.getCart().getId());
+            }
+        }
+        return cartIds.isEmpty() ? Set.of() : new HashSet<>(cartRepository.findExistingIds(cartIds));
+    }
+
+    private static String validate(Item row, Set<Long> existingCarts) {
+        String error = validateRow(row);
+        if (error != null) {
+            return error;
+        }
+        if (!existingCarts.contains(row.getCart().getId())) {
+            return "Cart not found with id " + row.getCart().getId();
+        }
+        return null;
+    }
+
+    /**
+     * Checks what can be checked without the database.
+     *
+     * @return the reason the row is invalid, {@code null} when it is valid
+     */
+    static String validateRow(Item row) {
+        if (row == null) {
+            return "Row could not be read as an item";
+        }
+        String serialNumber = row.getSerialNumber();
+        if (serialNumber == null || serialNumber.isBlank()) {
+            return "Serial number is mandatory";
+        }
+        if (serialNumber.length() > SERIAL_NUMBER_LENGTH) {
+            return "Serial number is longer than " + SERIAL_NUMBER_LENGTH + " characters";
+        }
+        if (row.getCart() == null || row.getCart().getId() == null) {
+            return "Cart id is mandatory";
+        }
+        return null;
+    }
+
+    private void evictCarts(Set<Long> cartIds) {
+        Cache carts = cacheManager.getCache(CacheConfig.CARTS);
+        if (carts != null) {
+            cartIds.forEach(carts::evict);
+        }
+    }
+}
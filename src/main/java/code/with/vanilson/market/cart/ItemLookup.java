@@ -0,0 +1,13 @@
+package code.with.vanilson.market.cart;
+
+/**
+ * ItemLookup
+ * <p>
+ * Result of a serial number lookup: just the columns a store scanner needs.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record ItemLookup(Long id, String serialNumber, Long cartId) {
+}
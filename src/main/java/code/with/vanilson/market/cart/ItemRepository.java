@@ -1,8 +1,21 @@
 package code.with.vanilson.market.cart;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 /**
  * CartRepository
  *
@@ -12,4 +25,92 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    String ITEM_RESPONSE = "select new code.with.vanilson.market.cart.ItemResponse(i.id, i.serialNumber, i.cart.id, "
+            + "i.version) from Item i ";
+
+    @Query(ITEM_RESPONSE + "order by i.id")
+    List<ItemResponse> findAllResponses();
+
+    @Query(ITEM_RESPONSE + "where i.id = :id")
+    Optional<ItemResponse> findResponseById(Long id);
+
+    /**
+     * The version of the item alone, enough to answer a conditional GET.
+     */
+    @Query("select i.version from Item i where i.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    /**
+     * Keyset page: the items following {@code id} in id order.
+     */
+    @Query(ITEM_RESPONSE + "where i.id > :id order by i.id")
+    List<ItemResponse> findResponsesAfter(Long id, Limit limit);
+
+    /**
+     * Streams every item in id order. Must be consumed inside a transaction so the driver can
+     * use a server-side cursor and fetch the rows in chunks.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(ITEM_RESPONSE + "order by i.id")
+    Stream<ItemResponse> streamAllResponses();
+
+    /**
+     * Exact serial number lookup, served by the serial number index.
+     */
+    @Query("select new code.with.vanilson.market.cart.ItemLookup(i.id, i.serialNumber, i.cart.id) "
+            + "from Item i where i.serialNumber = :serialNumber order by i.id")
+    List<ItemLookup> findLookupsBySerialNumber(String serialNumber);
+
+    /**
+     * Serial number search by LIKE pattern, in serial number order. Wildcards meant literally
+     * must be escaped with a backslash.
+     */
+    @Query("select new code.with.vanilson.market.cart.ItemLookup(i.id, i.serialNumber, i.cart.id) "
+            + "from Item i where i.serialNumber like :pattern escape '\\' order by i.serialNumber, i.id")
+    List<ItemLookup> findLookupsBySerialNumberLike(String pattern, Limit limit);
+
+    /**
+     * Streams the serial number of every item, used to build the in-memory serial number index.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new code.with.vanilson.market.cart.ItemLookup(i.id, i.serialNumber, i.cart.id) from Item i")
+    Stream<ItemLookup> streamAllLookups();
+
+    /**
+     * Locks the item row until the end of the transaction and returns it as it is then, so
+     * that the cart read here stays the cart of the item until the transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new code.with.vanilson.market.cart.ItemLookup(i.id, i.serialNumber, i.cart.id) "
+            + "from Item i where i.id = :id")
+    Optional<ItemLookup> lockLookupById(Long id);
+
+    /**
+     * Overwrites the item in a single statement, whatever its current version.
+     *
+     * @return the number of updated rows, 0 when the item does not exist
+     */
+    @Modifying
+    @Query("update Item i set i.serialNumber = :serialNumber, i.cart = :cart, i.version = i.version + 1 "
+            + "where i.id = :id")
+    int updateItem(Long id, String serialNumber, Cart cart);
+
+    /**
+     * Overwrites the item in a single statement, only if it is still at {@code version}.
+     *
+     * @return the number of updated rows, 0 when the item does not exist or has moved on
+     */
+    @Modifying
+    @Query("update Item i set i.serialNumber = :serialNumber, i.cart = :cart, i.version = i.version + 1 "
+            + "where i.id = :id and i.version = :version")
+    int updateItemIfVersion(Long id, String serialNumber, Cart cart, Long version);
+
+    /**
+     * Deletes the item in a single statement, without loading it first.
+     *
+     * @return the number of deleted rows, 0 when the item does not exist
+     */
+    @Modifying
+    @Query("delete from Item i where i.id = :id")
+    int deleteItem(Long id);
 }
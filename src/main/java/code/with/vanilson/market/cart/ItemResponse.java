@@ -0,0 +1,18 @@
+package code.with.vanilson.market.cart;
+
+/**
+ * ItemResponse
+ * <p>
+ * An item as returned by the API: plain columns, with the cart reduced to its id.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record ItemResponse(Long id, String serialNumber, Long cartId, Long version) {
+
+    public static ItemResponse of(Item item) {
+        return new ItemResponse(item.getId(), item.getSerialNumber(),
+                item.getCart() == null ? null : item.getCart().getId(), item.getVersion());
+    }
+}
@@ -1,9 +1,26 @@
 package code.with.vanilson.market.cart;
 
+import code.with.vanilson.market.changes.CartChange;
+import code.with.vanilson.market.changes.CartChangeOutbox;
+import code.with.vanilson.market.changes.CartChangeType;
+import code.with.vanilson.market.datasource.FanOut;
+import code.with.vanilson.market.datasource.ShardIds;
+import code.with.vanilson.market.datasource.ShardedBy;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * ItemService
@@ -13,49 +30,203 @@ import java.util.Optional;
  * @since 2024-09-06
  */
 @Service
+@Timed(value = "market.service", histogram = true)
 public class ItemService {
     public static final String ITEM_NOT_FOUND_WITH_ID = "Item not found with id ";
+    public static final String CART_FOREIGN_KEY = "fk_cart";
     private final ItemRepository itemRepository;
     private final CartRepository cartRepository;
+    private final EntityManager entityManager;
+    private final SerialNumberIndex serialNumberIndex;
+    private final CartChangeOutbox changeOutbox;
 
-    public ItemService(ItemRepository itemRepository, CartRepository cartRepository) {
+    public ItemService(ItemRepository itemRepository, CartRepository cartRepository, EntityManager entityManager,
+                       SerialNumberIndex serialNumberIndex, CartChangeOutbox changeOutbox) {
         this.itemRepository = itemRepository;
         this.cartRepository = cartRepository;
+        this.entityManager = entityManager;
+        this.serialNumberIndex = serialNumberIndex;
+        this.changeOutbox = changeOutbox;
     }
 
-    public List<Item> getAllItems() {
-        return itemRepository.findAll();
+    @FanOut
+    @Transactional(readOnly = true)
+    public List<ItemResponse> getAllItems() {
+        return itemRepository.findAllResponses();
     }
 
-    public Optional<Item> findItemById(Long id) {
-        Optional<Item> item = itemRepository.findById(id);
+    /**
+     * Returns at most {@code size} items with an id greater than {@code afterId}, in id order.
+     */
+    @FanOut(limit = "#size")
+    @Transactional(readOnly = true)
+    public List<ItemResponse> getItemsPage(long afterId, int size) {
+        return itemRepository.findResponsesAfter(afterId, Limit.of(size));
+    }
+
+    /**
+     * Hands every item to {@code action} as it is read from the database. Rows are read as plain
+     * values, never as managed entities, so memory stays flat regardless of the table size.
+     */
+    @FanOut
+    @Transactional(readOnly = true)
+    public void streamAllItems(Consumer<ItemResponse> action) {
+        try (Stream<ItemResponse> items = itemRepository.streamAllResponses()) {
+            items.forEach(action);
+        }
+    }
+
+    @ShardedBy("#id")
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ITEMS, key = "#id", unless = CacheConfig.UNLESS_REPLICA_READ)
+    public Optional<ItemResponse> findItemById(Long id) {
+        Optional<ItemResponse> item = itemRepository.findResponseById(id);
         if (item.isPresent()) {
             return item;
         }
         throw new ResourceNotFoundException(ITEM_NOT_FOUND_WITH_ID + id);
     }
 
-    public Item createItem(Item item) {
+    /**
+     * The current version of the item, read without the rest of the item.
+     */
+    @ShardedBy("#id")
+    @Transactional(readOnly = true)
+    public long findItemVersion(Long id) {
+        return itemRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(ITEM_NOT_FOUND_WITH_ID + id));
+    }
+
+    /**
+     * Returns every item carrying the serial number, from the in-memory index when it is
+     * enabled and loaded, otherwise through the serial number database index.
+     */
+    @FanOut
+    @Transactional(readOnly = true)
+    public List<ItemLookup> findBySerialNumber(String serialNumber) {
+        List<ItemLookup> items = serialNumberIndex.isReady()
+                ? serialNumberIndex.find(serialNumber)
+                : itemRepository.findLookupsBySerialNumber(serialNumber);
+        if (items.isEmpty()) {
+            throw new ResourceNotFoundException("Item not found with serial number " + serialNumber);
+        }
+        return items;
+    }
+
+    /**
+     * Returns at most {@code limit} items whose serial number starts with {@code prefix}, in
+     * serial number order.
+     */
+    @FanOut(limit = "#limit", orderBy = "serialNumber()")
+    @Transactional(readOnly = true)
+    public List<ItemLookup> searchBySerialNumberPrefix(String prefix, int limit) {
+        if (serialNumberIndex.isReady()) {
+            return serialNumberIndex.findByPrefix(prefix, limit);
+        }
+        return itemRepository.findLookupsBySerialNumberLike(likePrefix(prefix), Limit.of(limit));
+    }
+
+    /**
+     * The cached cart no longer lists all of its items once a new one is added.
+     */
+    @ShardedBy("#item.cart?.id")
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CARTS, key = "#item.cart.id")
+    public ItemResponse createItem(Item item) {
+        // Ids and versions are always generated, any value sent by the client is ignored
+        item.setId(null);
+        item.setVersion(null);
         Cart cart = cartRepository.findById(item.getCart().getId())
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found with id " + item.getCart().getId()));
         item.setCart(cart);
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        cartRepository.addToItemCount(cart.getId(), 1);
+        changeOutbox.append(CartChange.item(CartChangeType.ITEM_CREATED, saved.getId(), saved.getSerialNumber(),
+                cart.getId()));
+        serialNumberIndex.put(new ItemLookup(saved.getId(), saved.getSerialNumber(), cart.getId()));
+        return ItemResponse.of(saved);
     }
 
+    /**
+     * Deletes the item with a single statement, after locking it and taking it off the item
+     * counter of the cart it is in once locked. Drops the item and every cached cart.
+     */
+    @ShardedBy("#id")
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CARTS, allEntries = true)})
     public void deleteItem(Long id) {
-        Optional<Item> item = itemRepository.findById(id);
-        if (item.isPresent()) {
-            itemRepository.deleteById(id);
-            return;
-        }
-        throw new ResourceNotFoundException(ITEM_NOT_FOUND_WITH_ID + id);
+        ItemLookup item = itemRepository.lockLookupById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(ITEM_NOT_FOUND_WITH_ID + id));
+        cartRepository.moveItemCount(item.cartId(), null);
+        changeOutbox.appendItemDeleted(id);
+        itemRepository.deleteItem(id);
+        serialNumberIndex.remove(id);
     }
 
-    public Item updateItem(Long id, Item updatedItem) {
-        Item existingItem = itemRepository.findById(id)
+    /**
+     * Updates the item with a single statement, after locking it, bumping the versions of the
+     * cart it is in once locked and of its new cart, and moving it between their item counters.
+     * The lock keeps concurrent moves and deletes of the item from counting it off the same
+     * cart twice. When {@code updatedItem} carries a version the update only applies to that
+     * version, and a concurrent change is reported as a conflict; the returned item then
+     * carries the new version. Without a version the item is
+     * overwritten and the returned version is left empty.
+     * <p>
+     * The item may move between carts, so both the item and every cached cart are dropped. It
+     * cannot move to a cart on another shard, its id names the shard it lives on.
+     */
+    @ShardedBy("#id")
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CARTS, allEntries = true)})
+    public ItemResponse updateItem(Long id, Item updatedItem) {
+        Long cartId = updatedItem.getCart() == null ? null : updatedItem.getCart().getId();
+        if (cartId != null && ShardIds.shardOf(cartId) != ShardIds.shardOf(id)) {
+            throw new ResourceConflictException("Item " + id + " cannot move to cart " + cartId
+                    + ", which is on another shard");
+        }
+        Cart cart = cartId == null ? null : entityManager.getReference(Cart.class, cartId);
+        Long version = updatedItem.getVersion();
+        ItemLookup current = itemRepository.lockLookupById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(ITEM_NOT_FOUND_WITH_ID + id));
-        existingItem.setSerialNumber(updatedItem.getSerialNumber());
-        existingItem.setCart(updatedItem.getCart());
-        return itemRepository.save(existingItem);
+        int updated;
+        try {
+            // Rolled back with the rest when the update below does not apply
+            cartRepository.moveItemCount(current.cartId(), cartId);
+            updated = version == null
+                    ? itemRepository.updateItem(id, updatedItem.getSerialNumber(), cart)
+                    : itemRepository.updateItemIfVersion(id, updatedItem.getSerialNumber(), cart, version);
+        } catch (DataIntegrityViolationException e) {
+            if (isMissingCart(e)) {
+                throw new ResourceNotFoundException("Cart not found with id " + cartId);
+            }
+            throw e;
+        }
+        if (updated == 0) {
+            // The item is locked, so only its version can be the reason
+            throw new ResourceConflictException("Item " + id + " was modified concurrently, expected version "
+                    + version);
+        }
+        changeOutbox.append(CartChange.item(CartChangeType.ITEM_UPDATED, id, updatedItem.getSerialNumber(), cartId));
+        serialNumberIndex.put(new ItemLookup(id, updatedItem.getSerialNumber(), cartId));
+        return new ItemResponse(id, updatedItem.getSerialNumber(), cartId, version == null ? null : version + 1);
+    }
+
+    /**
+     * Whether the violation is the item pointing at a cart that does not exist, rather than a
+     * value the item columns do not accept.
+     */
+    static boolean isMissingCart(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && CART_FOREIGN_KEY.equalsIgnoreCase(violation.getConstraintName());
+    }
+
+    static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
     }
 }
@@ -0,0 +1,49 @@
+package code.with.vanilson.market.cart;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * ItemWriteBehindController
+ * <p>
+ * Item additions acknowledged from the write-behind log, only exposed when
+ * {@code market.items.write-behind.enabled} is set.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@RestController
+@RequestMapping("/api/items")
+@ConditionalOnProperty(prefix = "market.items.write-behind", name = "enabled", havingValue = "true")
+public class ItemWriteBehindController {
+
+    private final ItemWriteBehindService itemWriteBehindService;
+
+    public ItemWriteBehindController(ItemWriteBehindService itemWriteBehindService) {
+        this.itemWriteBehindService = itemWriteBehindService;
+    }
+
+    /**
+     * Accepts an item shaped like the create-item payload. The item is not created yet when
+     * this returns 202; it is inserted by the next flush.
+     */
+    @PostMapping("/write-behind")
+    public ResponseEntity<ItemWriteReceipt> addItem(@RequestBody Item item) {
+        return ResponseEntity.accepted().body(itemWriteBehindService.addItem(item));
+    }
+
+    @ExceptionHandler(WriteBehindFullException.class)
+    public ResponseEntity<String> handleFull(WriteBehindFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+}
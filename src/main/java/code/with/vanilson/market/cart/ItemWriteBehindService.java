@@ -0,0 +1,214 @@
+package code.with.vanilson.market.cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemWriteBehindService
+ * <p>
+ * Opt-in write-behind for item additions ({@code market.items.write-behind.enabled}). An
+ * addition is acknowledged once it is appended to the {@link ItemWriteLog}; a background
+ * writer then inserts the logged items in batches through {@link ItemImportService#importChunk}
+ * and records the last flushed sequence in {@code tb_item_write_log_checkpoint} in the same
+ * transaction. On startup every logged item after the checkpoint is flushed again.
+ * <p>
+ * The checkpoint is keyed by the id the log got when it was created, so instances with logs of
+ * their own never share one. Startup fails when the log is already open in another process, or
+ * when an existing log has no checkpoint in the database, since its records would then be
+ * replayed against a database that may already hold them.
+ * <p>
+ * Additions are rejected with 503 once {@code max-pending} items wait for the database or the
+ * log is full. Items whose cart no longer exists when they are flushed are dropped and
+ * counted.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Service
+@ConditionalOnProperty(prefix = "market.items.write-behind", name = "enabled", havingValue = "true")
+public class ItemWriteBehindService {
+    private static final Logger log = LoggerFactory.getLogger(ItemWriteBehindService.class);
+
+    private final ItemImportService itemImportService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final long maxPending;
+    private final boolean forceOnAppend;
+    private final ItemWriteLog writeLog;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "item-write-behind"));
+    private final Timer flushTimer;
+    private final Timer lagTimer;
+    private final DistributionSummary batchSummary;
+    private final Counter dropped;
+    private final Counter rejected;
+
+    public ItemWriteBehindService(ItemImportService itemImportService, TransactionTemplate transactionTemplate,
+                                  JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                  @Value("${market.items.write-behind.log-path}") Path logPath,
+                                  @Value("${market.items.write-behind.log-size:64MB}") DataSize logSize,
+                                  @Value("${market.items.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${market.items.write-behind.flush-interval:50ms}") Duration flushInterval,
+                                  @Value("${market.items.write-behind.max-pending:100000}") long maxPending,
+                                  @Value("${market.items.write-behind.force-on-append:false}") boolean forceOnAppend)
+            throws IOException {
+        this.itemImportService = itemImportService;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxPending = maxPending;
+        this.forceOnAppend = forceOnAppend;
+        this.writeLog = ItemWriteLog.open(logPath, Math.toIntExact(logSize.toBytes()), this::checkpoint);
+        if (writeLog.pending() > 0) {
+            log.info("Replaying {} logged items from {}", writeLog.pending(), logPath);
+        }
+
+        this.flushTimer = Timer.builder("market.items.write.behind.flush")
+                .description("Time to insert a batch of logged items")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("market.items.write.behind.lag")
+                .description("Time from logging an item to its commit in the database")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSummary = DistributionSummary.builder("market.items.write.behind.batch")
+                .description("Items per flushed batch")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("market.items.write.behind.dropped")
+                .description("Logged items that could not be inserted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("market.items.write.behind.rejected")
+                .description("Item additions refused because the log was full")
+                .register(meterRegistry);
+        Gauge.builder("market.items.write.behind.pending", writeLog, ItemWriteLog::pending)
+                .description("Logged items waiting for the database")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushPending, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flushPending();
+        writeLog.close();
+    }
+
+    /**
+     * Logs the item addition; the item reaches the database with the next flush.
+     */
+    public ItemWriteReceipt addItem(Item item) {
+        String error = ItemImportService.validateRow(item);
+        if (error != null) {
+            throw new InvalidItemException(error);
+        }
+        long sequence = writeLog.pending() < maxPending
+                ? writeLog.append(item.getCart().getId(), item.getSerialNumber(), System.currentTimeMillis())
+                : -1;
+        if (sequence < 0) {
+            rejected.increment();
+            throw new WriteBehindFullException("Item write log is full, retry later");
+        }
+        if (forceOnAppend) {
+            writeLog.force();
+        }
+        return new ItemWriteReceipt(sequence);
+    }
+
+    /**
+     * Number of logged items waiting for the database.
+     */
+    public long pending() {
+        return writeLog.pending();
+    }
+
+    /**
+     * Flushes batches until the log is drained or a batch fails; a failed batch stays in the
+     * log and is retried on the next run.
+     */
+    void flushPending() {
+        try {
+            while (flushBatch() == batchSize) {
+                // More is waiting, keep going without waiting for the next run
+            }
+        } catch (RuntimeException e) {
+            log.warn("Flushing the item write log failed, retrying in {}", flushInterval, e);
+        }
+    }
+
+    private int flushBatch() {
+        List<ItemWriteLog.Entry> entries = writeLog.read(batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        List<Item> rows = new ArrayList<>(entries.size());
+        for (ItemWriteLog.Entry entry : entries) {
+            Cart cart = new Cart();
+            cart.setId(entry.cartId());
+            rows.add(new Item(entry.serialNumber(), cart));
+        }
+        ItemWriteLog.Entry last = entries.get(entries.size() - 1);
+        List<ItemImportResult> results = flushTimer.record(() -> transactionTemplate.execute(status -> {
+            List<ItemImportResult> imported = itemImportService.importChunk(rows, 0);
+            jdbcTemplate.update("UPDATE tb_item_write_log_checkpoint SET last_sequence = ? WHERE log_id = ?",
+                    last.sequence(), writeLog.id());
+            return imported;
+        }));
+        writeLog.advance(last);
+
+        long now = System.currentTimeMillis();
+        batchSummary.record(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            lagTimer.record(Duration.ofMillis(now - entries.get(i).appendedAt()));
+            if (results.get(i).status() == ItemImportResult.Status.FAILED) {
+                dropped.increment();
+                log.warn("Dropped logged item {}: {}", entries.get(i).sequence(), results.get(i).error());
+            }
+        }
+        return entries.size();
+    }
+
+    private long checkpoint(String logId, boolean created) {
+        List<Long> sequence = jdbcTemplate.queryForList(
+                "SELECT last_sequence FROM tb_item_write_log_checkpoint WHERE log_id = ?", Long.class, logId);
+        if (!sequence.isEmpty()) {
+            return sequence.get(0);
+        }
+        if (!created) {
+            throw new IllegalStateException("Item write log " + logId + " has no checkpoint in this database");
+        }
+        jdbcTemplate.update("INSERT INTO tb_item_write_log_checkpoint (log_id, last_sequence) VALUES (?, 0)", logId);
+        return 0;
+    }
+}
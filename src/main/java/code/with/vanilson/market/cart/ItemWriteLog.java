@@ -0,0 +1,307 @@
+package code.with.vanilson.market.cart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * ItemWriteLog
+ * <p>
+ * Append-only log of item additions in a memory-mapped file, used as a ring buffer between the
+ * request threads and the write-behind flusher. A record is
+ * {@code [length][crc32][sequence][appendedAt][cartId][serial length][serial]}; a length of
+ * {@code -1} means the next record is at the start of the ring and a length of 0 ends the log.
+ * <p>
+ * Appends are serialised; a single reader consumes the records and {@link #advance} past them
+ * once they are in the database, which also stores its position in the file header. On open
+ * the log is scanned from that position and every record with a sequence above the database
+ * checkpoint is handed to the reader again, so nothing acknowledged is lost when the process
+ * dies. Records survive a process crash as soon as they are appended; surviving an OS crash
+ * needs {@link #force()}.
+ * <p>
+ * A log gets a random id in its header when it is created, which names its checkpoint, and is
+ * locked by the process that has it open. A log without an id, or already open elsewhere, is
+ * refused.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+final class ItemWriteLog implements Closeable {
+    static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x49574c31;
+    private static final int READ_POSITION = 8;
+    private static final int ID_POSITION = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD_SIZE = 26;
+    private static final int WRAP = -1;
+
+    record Entry(long sequence, long appendedAt, long cartId, String serialNumber, int next) {
+    }
+
+    /**
+     * Where the sequence of the last record in the database is kept.
+     */
+    interface Checkpoints {
+
+        /**
+         * @param logId   the id of the log
+         * @param created whether the log was just created, with no record yet
+         * @return the sequence of the last record known to be in the database
+         */
+        long lastFlushed(String logId, boolean created);
+    }
+
+
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer buffer;
+    private final String id;
+    private final int capacity;
+    private volatile int readPosition;
+    private volatile int writePosition;
+    private volatile long lastSequence;
+    private volatile long flushedSequence;
+
+    private ItemWriteLog(FileChannel channel, FileLock lock, MappedByteBuffer buffer, String id, long checkpoint) {
+        this.channel = channel;
+        this.lock = lock;
+        this.buffer = buffer;
+        this.id = id;
+        this.capacity = buffer.capacity();
+        this.flushedSequence = checkpoint;
+        recover(checkpoint);
+    }
+
+    /**
+     * Opens the log at {@code path}, creating it with {@code capacity} bytes when it does not
+     * exist. An existing log keeps its size.
+     *
+     * @param checkpoint the sequence of the last record known to be in the database
+     */
+    static ItemWriteLog open(Path path, int capacity, long checkpoint) throws IOException {
+        return open(path, capacity, (logId, created) -> checkpoint);
+    }
+
+    /**
+     * Opens the log at {@code path}, creating it with {@code capacity} bytes and a new id when
+     * it does not exist, and reads its checkpoint from {@code checkpoints}. An existing log keeps
+     * its size and id.
+     *
+     * @throws IllegalStateException when the log has no id or another process has it open
+     */
+    static ItemWriteLog open(Path path, int capacity, Checkpoints checkpoints) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock lock = lock(channel, path);
+            long size = channel.size() == 0 ? capacity : channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            boolean created = buffer.getInt(0) != MAGIC;
+            if (created) {
+                UUID id = UUID.randomUUID();
+                buffer.putLong(ID_POSITION, id.getMostSignificantBits());
+                buffer.putLong(ID_POSITION + 8, id.getLeastSignificantBits());
+                buffer.putInt(READ_POSITION, HEADER_SIZE);
+                buffer.putInt(HEADER_SIZE, 0);
+                // Last, a torn creation is created again on the next open
+                buffer.putInt(0, MAGIC);
+            }
+            UUID id = new UUID(buffer.getLong(ID_POSITION), buffer.getLong(ID_POSITION + 8));
+            if (id.getMostSignificantBits() == 0 && id.getLeastSignificantBits() == 0) {
+                throw new IllegalStateException("Item write log " + path + " has no id, flush it with the "
+                        + "version that wrote it and remove it");
+            }
+            return new ItemWriteLog(channel, lock, buffer, id.toString(),
+                    checkpoints.lastFlushed(id.toString(), created));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static FileLock lock(FileChannel channel, Path path) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IllegalStateException("Item write log " + path + " is already open in another process, "
+                    + "every instance needs a log-path of its own");
+        }
+        return lock;
+    }
+
+    /**
+     * The id given to the log when it was created, which names its checkpoint.
+     */
+    String id() {
+        return id;
+    }
+
+    /**
+     * Appends an item addition.
+     *
+     * @return the sequence of the record, or {@code -1} when the log is full
+     */
+    synchronized long append(long cartId, String serialNumber, long appendedAt) {
+        byte[] serial = serialNumber.getBytes(StandardCharsets.UTF_8);
+        int size = RECORD_HEADER_SIZE + FIXED_PAYLOAD_SIZE + serial.length;
+        int write = writePosition;
+        int read = readPosition;
+        int at;
+        if (write >= read && write + size + 4 <= capacity) {
+            at = write;
+        } else if (write >= read && HEADER_SIZE + size + 4 <= read) {
+            at = HEADER_SIZE;
+        } else if (write < read && write + size + 4 <= read) {
+            at = write;
+        } else {
+            return -1;
+        }
+        long sequence = lastSequence + 1;
+        int payload = at + RECORD_HEADER_SIZE;
+        buffer.putLong(payload, sequence);
+        buffer.putLong(payload + 8, appendedAt);
+        buffer.putLong(payload + 16, cartId);
+        buffer.putShort(payload + 24, (short) serial.length);
+        buffer.put(payload + FIXED_PAYLOAD_SIZE, serial);
+        buffer.putInt(at + size, 0);
+        buffer.putInt(at + 4, crc(payload, size - RECORD_HEADER_SIZE));
+        buffer.putInt(at, size - RECORD_HEADER_SIZE);
+        if (at != write) {
+            buffer.putInt(write, WRAP);
+        }
+        lastSequence = sequence;
+        writePosition = at + size;
+        return sequence;
+    }
+
+    /**
+     * Returns up to {@code max} records following the last one passed to {@link #advance}.
+     * Only one thread may read.
+     */
+    List<Entry> read(int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, 1024));
+        int position = readPosition;
+        int end = writePosition;
+        while (entries.size() < max && position != end) {
+            if (buffer.getInt(position) == WRAP) {
+                position = HEADER_SIZE;
+                continue;
+            }
+            Entry entry = entry(position);
+            if (entry == null) {
+                throw new IllegalStateException("Corrupt item write log record at " + position);
+            }
+            entries.add(entry);
+            position = entry.next();
+        }
+        return entries;
+    }
+
+    /**
+     * Releases every record up to and including {@code last}, once it is in the database.
+     */
+    void advance(Entry last) {
+        buffer.putInt(READ_POSITION, last.next());
+        flushedSequence = last.sequence();
+        readPosition = last.next();
+    }
+
+    /**
+     * Number of appended records not yet released.
+     */
+    long pending() {
+        return lastSequence - flushedSequence;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        lock.release();
+        channel.close();
+    }
+
+    private void recover(long checkpoint) {
+        int start = buffer.getInt(READ_POSITION);
+        int position = start >= HEADER_SIZE && start + 4 <= capacity ? start : HEADER_SIZE;
+        int end = position;
+        int firstPending = -1;
+        long previous = Long.MIN_VALUE;
+        while (true) {
+            if (buffer.getInt(position) == WRAP) {
+                if (position == HEADER_SIZE) {
+                    break;
+                }
+                position = HEADER_SIZE;
+                continue;
+            }
+            Entry entry = entry(position);
+            if (entry == null || entry.sequence() <= previous) {
+                break;
+            }
+            if (firstPending < 0 && entry.sequence() > checkpoint) {
+                firstPending = position;
+            }
+            previous = entry.sequence();
+            position = entry.next();
+            end = position;
+        }
+        // A fresh terminator, whatever was left behind a torn write
+        buffer.putInt(end, 0);
+        writePosition = end;
+        readPosition = firstPending < 0 ? end : firstPending;
+        lastSequence = Math.max(previous, checkpoint);
+    }
+
+    private Entry entry(int position) {
+        if (position + RECORD_HEADER_SIZE > capacity) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        int payload = position + RECORD_HEADER_SIZE;
+        if (length < FIXED_PAYLOAD_SIZE || payload + length + 4 > capacity
+                || buffer.getInt(position + 4) != crc(payload, length)) {
+            return null;
+        }
+        int serialLength = buffer.getShort(payload + 24);
+        if (serialLength != length - FIXED_PAYLOAD_SIZE) {
+            return null;
+        }
+        byte[] serial = new byte[serialLength];
+        buffer.get(payload + FIXED_PAYLOAD_SIZE, serial);
+        return new Entry(buffer.getLong(payload), buffer.getLong(payload + 8), buffer.getLong(payload + 16),
+                new String(serial, StandardCharsets.UTF_8), payload + length);
+    }
+
+    private int crc(int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
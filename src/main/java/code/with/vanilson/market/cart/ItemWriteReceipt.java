@@ -0,0 +1,14 @@
+package code.with.vanilson.market.cart;
+
+/**
+ * ItemWriteReceipt
+ * <p>
+ * Acknowledges an item addition accepted by the write-behind log; {@code sequence} is its
+ * position in the log.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record ItemWriteReceipt(long sequence) {
+}
@@ -0,0 +1,58 @@
+package code.with.vanilson.market.cart;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * KeysetPages
+ * <p>
+ * Builds keyset (cursor on id) page responses for the list endpoints. The body stays a plain
+ * JSON array; the cursor for the following page is advertised in a {@code Link: rel="next"}
+ * header as long as the page came back full.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public final class KeysetPages {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    private KeysetPages() {
+    }
+
+    public static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> rows, int size, ToLongFunction<T> idOf) {
+        return page(rows, size, idOf, ServletUriComponentsBuilder.fromCurrentRequest());
+    }
+
+    /**
+     * Same as {@link #page(List, int, ToLongFunction)}, linking the next page relative to
+     * {@code request}, the URI of the current request.
+     */
+    public static <T> ResponseEntity<List<T>> page(List<T> rows, int size, ToLongFunction<T> idOf,
+                                                   UriComponentsBuilder request) {
+        if (rows.size() < size) {
+            return ResponseEntity.ok(rows);
+        }
+        long lastId = idOf.applyAsLong(rows.get(rows.size() - 1));
+        String next = request
+                .replaceQueryParam("after", lastId)
+                .replaceQueryParam("size", size)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(rows);
+    }
+}
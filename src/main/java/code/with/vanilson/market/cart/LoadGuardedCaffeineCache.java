@@ -0,0 +1,82 @@
+package code.with.vanilson.market.cart;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadGuardedCaffeineCache
+ * <p>
+ * A {@link CaffeineCache} that drops a value loaded after a miss when the cache was
+ * invalidated while it was being loaded. The load may have read the row before the write that
+ * invalidated the cache committed; stored, that row would be served until it expires. Any
+ * invalidation of the cache counts, the cost is a load that is not cached.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+class LoadGuardedCaffeineCache extends CaffeineCache {
+    private final AtomicLong invalidations = new AtomicLong();
+    private final ThreadLocal<Miss> lastMiss = new ThreadLocal<>();
+
+    LoadGuardedCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                             boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        long seen = invalidations.get();
+        ValueWrapper value = super.get(key);
+        if (value == null) {
+            lastMiss.set(new Miss(key, seen));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Miss miss = lastMiss.get();
+        if (miss == null || !miss.key().equals(key)) {
+            super.put(key, value);
+            return;
+        }
+        lastMiss.remove();
+        if (miss.invalidations() != invalidations.get()) {
+            return;
+        }
+        super.put(key, value);
+        // Invalidated between the check and the put
+        if (miss.invalidations() != invalidations.get()) {
+            super.evict(key);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidations.incrementAndGet();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        invalidations.incrementAndGet();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        invalidations.incrementAndGet();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        invalidations.incrementAndGet();
+        return super.invalidate();
+    }
+
+    private record Miss(Object key, long invalidations) {
+    }
+}
@@ -0,0 +1,250 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.changes.CartChange;
+import code.with.vanilson.market.changes.CartChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * SerialNumberIndex
+ * <p>
+ * Optional in-memory index of every item by serial number, so scanner lookups and prefix
+ * searches never reach the database. Serial numbers are kept in a sorted skip list (a prefix is
+ * a contiguous key range) mapping to the ids that carry them, plus a map from id back to the
+ * indexed row so updates and deletes by id can find the old entry.
+ * <p>
+ * Reads are lock free. Writes are serialised on the index and, inside a transaction, applied
+ * only after commit so a rolled back write never becomes visible. The index is loaded once the
+ * application is ready, before it reports accepting traffic; until then {@link #isReady()} is
+ * false and callers use the database. Writes committed while the index loads are held back and
+ * applied after the loaded rows, so a write is never overwritten by an older loaded row.
+ * <p>
+ * Besides its own writes, the index applies every change published on the change feed, which
+ * includes those of the other instances and of the write-behind flushes. The index therefore
+ * requires {@code market.changes.enabled}; the changes of other instances are applied once
+ * published, after {@code market.changes.relay-interval} or so. Enabled with
+ * {@code market.items.serial-index.enabled}.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Component
+public class SerialNumberIndex implements CartChangeListener {
+    private static final Logger log = LoggerFactory.getLogger(SerialNumberIndex.class);
+    private static final long[] NO_IDS = new long[0];
+
+    private final boolean enabled;
+    private final ConcurrentSkipListMap<String, long[]> idsBySerialNumber = new ConcurrentSkipListMap<>();
+    private final Map<Long, ItemLookup> itemsById = new ConcurrentHashMap<>();
+    private final List<Runnable> heldBack = new ArrayList<>();
+    private boolean loading;
+    private volatile boolean ready;
+
+    public SerialNumberIndex(@Value("${market.items.serial-index.enabled:false}") boolean enabled,
+                             @Value("${market.changes.enabled:false}") boolean changesEnabled) {
+        if (enabled && !changesEnabled) {
+            throw new IllegalStateException("market.items.serial-index.enabled requires market.changes.enabled, "
+                    + "which keeps the index of every instance up to date");
+        }
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        ItemRepository itemRepository = event.getApplicationContext().getBean(ItemRepository.class);
+        TransactionTemplate transactionTemplate = event.getApplicationContext().getBean(TransactionTemplate.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<ItemLookup> lookups = itemRepository.streamAllLookups()) {
+                load(lookups);
+            }
+        });
+        log.info("Serial number index loaded with {} items", itemsById.size());
+    }
+
+    /**
+     * Loads the items, then applies the writes held back meanwhile, in the order they came.
+     */
+    void load(Stream<ItemLookup> lookups) {
+        synchronized (this) {
+            loading = true;
+        }
+        lookups.forEach(this::apply);
+        synchronized (this) {
+            heldBack.forEach(Runnable::run);
+            heldBack.clear();
+            loading = false;
+        }
+        ready = true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<ItemLookup> find(String serialNumber) {
+        return lookups(idsBySerialNumber.getOrDefault(serialNumber, NO_IDS), new ArrayList<>(), Integer.MAX_VALUE);
+    }
+
+    public List<ItemLookup> findByPrefix(String prefix, int limit) {
+        ConcurrentNavigableMap<String, long[]> range = prefix.isEmpty()
+                ? idsBySerialNumber
+                : idsBySerialNumber.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        List<ItemLookup> result = new ArrayList<>(Math.min(limit, 64));
+        for (long[] ids : range.values()) {
+            if (lookups(ids, result, limit).size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds or replaces the entries of the given items.
+     */
+    public void put(Collection<ItemLookup> items) {
+        if (enabled && !items.isEmpty()) {
+            afterCommit(() -> items.forEach(this::apply));
+        }
+    }
+
+    public void put(ItemLookup item) {
+        put(List.of(item));
+    }
+
+    public void remove(Long id) {
+        if (enabled) {
+            afterCommit(() -> removeEntry(id));
+        }
+    }
+
+    /**
+     * Removes every item of the cart, used when the cart is deleted with its items.
+     */
+    public void removeCart(Long cartId) {
+        removeCarts(List.of(cartId));
+    }
+
+    /**
+     * Removes every item of the carts in a single pass over the index.
+     */
+    public void removeCarts(Collection<Long> cartIds) {
+        if (enabled && !cartIds.isEmpty()) {
+            Set<Long> carts = new HashSet<>(cartIds);
+            afterCommit(() -> removeEntries(carts));
+        }
+    }
+
+    /**
+     * Applies the published changes of every instance. Its own writes come back this way too,
+     * which is harmless and restores their order with the writes of the other instances.
+     */
+    @Override
+    public void onChanges(List<CartChange> changes) {
+        if (!enabled) {
+            return;
+        }
+        whenLoaded(() -> changes.forEach(change -> {
+            switch (change.type()) {
+                case ITEM_CREATED, ITEM_UPDATED ->
+                        apply(new ItemLookup(change.itemId(), change.serialNumber(), change.cartId()));
+                case ITEM_DELETED -> removeEntry(change.itemId());
+                case CART_DELETED -> removeEntries(Set.of(change.cartId()));
+                case CART_CREATED -> {
+                    // Its items come as changes of their own
+                }
+            }
+        }));
+    }
+
+    private List<ItemLookup> lookups(long[] ids, List<ItemLookup> into, int limit) {
+        for (long id : ids) {
+            ItemLookup item = itemsById.get(id);
+            if (item != null && into.size() < limit) {
+                into.add(item);
+            }
+        }
+        return into;
+    }
+
+    private synchronized void apply(ItemLookup item) {
+        removeEntry(item.id());
+        itemsById.put(item.id(), item);
+        long[] ids = idsBySerialNumber.getOrDefault(item.serialNumber(), NO_IDS);
+        long[] updated = Arrays.copyOf(ids, ids.length + 1);
+        updated[ids.length] = item.id();
+        idsBySerialNumber.put(item.serialNumber(), updated);
+    }
+
+    private synchronized void removeEntries(Set<Long> cartIds) {
+        itemsById.values().stream()
+                .filter(item -> cartIds.contains(item.cartId()))
+                .map(ItemLookup::id)
+                .toList()
+                .forEach(this::removeEntry);
+    }
+
+    private synchronized void removeEntry(Long id) {
+        ItemLookup previous = itemsById.remove(id);
+        if (previous == null) {
+            return;
+        }
+        long[] ids = idsBySerialNumber.getOrDefault(previous.serialNumber(), NO_IDS);
+        long[] remaining = Arrays.stream(ids).filter(existing -> existing != id).toArray();
+        if (remaining.length == 0) {
+            idsBySerialNumber.remove(previous.serialNumber());
+        } else {
+            idsBySerialNumber.put(previous.serialNumber(), remaining);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    whenLoaded(action);
+                }
+            });
+        } else {
+            whenLoaded(action);
+        }
+    }
+
+    /**
+     * Runs the write now, or once the index is loaded when it is loading.
+     */
+    private synchronized void whenLoaded(Runnable action) {
+        if (loading) {
+            heldBack.add(action);
+        } else {
+            action.run();
+        }
+    }
+}
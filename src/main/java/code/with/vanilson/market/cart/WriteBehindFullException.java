@@ -0,0 +1,18 @@
+package code.with.vanilson.market.cart;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * WriteBehindFullException
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteBehindFullException extends RuntimeException {
+    public WriteBehindFullException(String message) {
+        super(message);
+    }
+}
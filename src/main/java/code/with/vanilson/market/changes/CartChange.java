@@ -0,0 +1,25 @@
+package code.with.vanilson.market.changes;
+
+import java.time.Instant;
+
+/**
+ * CartChange
+ * <p>
+ * One entry of the cart change feed. {@code offset} is its position in the feed, empty until
+ * the change is published; item changes carry the item, its serial number and its cart.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record CartChange(Long offset, CartChangeType type, Long cartId, Long itemId, String serialNumber,
+                         Instant occurredAt) {
+
+    public static CartChange cart(CartChangeType type, Long cartId) {
+        return new CartChange(null, type, cartId, null, null, null);
+    }
+
+    public static CartChange item(CartChangeType type, Long itemId, String serialNumber, Long cartId) {
+        return new CartChange(null, type, cartId, itemId, serialNumber, null);
+    }
+}
@@ -0,0 +1,39 @@
+package code.with.vanilson.market.changes;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * CartChangeController
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@RestController
+@RequestMapping("/api/carts")
+@ConditionalOnProperty(prefix = "market.changes", name = "enabled", havingValue = "true")
+public class CartChangeController {
+    private final CartChangeRelay relay;
+
+    public CartChangeController(CartChangeRelay relay) {
+        this.relay = relay;
+    }
+
+    /**
+     * Server-Sent Events feed of cart and item changes, each event carrying its offset as id.
+     * A consumer resumes after the offset in {@code Last-Event-ID}, as sent by browsers on
+     * reconnect, or in {@code after}; without either it follows the changes from now on.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                              @RequestParam(required = false) Long after) {
+        return relay.subscribe(lastEventId != null ? lastEventId : after);
+    }
+}
@@ -0,0 +1,19 @@
+package code.with.vanilson.market.changes;
+
+import java.util.List;
+
+/**
+ * CartChangeListener
+ * <p>
+ * Receives the published cart changes inside the application, whichever instance made them.
+ * Called on the relay thread with each batch in offset order; a batch whose listener throws is
+ * passed again on the next run, so handling a change twice must be harmless.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public interface CartChangeListener {
+
+    void onChanges(List<CartChange> changes);
+}
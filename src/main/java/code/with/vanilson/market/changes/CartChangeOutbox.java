@@ -0,0 +1,172 @@
+package code.with.vanilson.market.changes;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * CartChangeOutbox
+ * <p>
+ * The transactional outbox behind the cart change feed. Writers append their changes to
+ * {@code tb_cart_changes} inside their own transaction, so a change is published if and only if
+ * it is committed; {@link CartChangeRelay} later gives every committed change its offset.
+ * Appends are no-ops unless {@code market.changes.enabled} is set.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Repository
+public class CartChangeOutbox {
+    private static final String INSERT = "INSERT INTO tb_cart_changes "
+            + "(change_type, cart_id, item_id, serial_number, occurred_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT change_offset, change_type, cart_id, item_id, serial_number, "
+            + "occurred_at FROM tb_cart_changes ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public CartChangeOutbox(JdbcTemplate jdbcTemplate, @Value("${market.changes.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void append(CartChange change) {
+        append(List.of(change));
+    }
+
+    /**
+     * Appends the changes in one JDBC batch, in the caller's transaction.
+     */
+    public void append(List<CartChange> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT, changes, changes.size(), (ps, change) -> {
+            ps.setString(1, change.type().name());
+            ps.setObject(2, change.cartId(), Types.BIGINT);
+            ps.setObject(3, change.itemId(), Types.BIGINT);
+            ps.setString(4, change.serialNumber());
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    /**
+     * Appends the deletion of the item, read from the item row itself. Must run before the item
+     * is deleted.
+     */
+    public void appendItemDeleted(Long itemId) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO tb_cart_changes (change_type, cart_id, item_id, serial_number, occurred_at) "
+                        + "SELECT ?, cart_id, id, serial_number, ? FROM tb_items WHERE id = ?",
+                CartChangeType.ITEM_DELETED.name(), Timestamp.from(Instant.now()), itemId);
+    }
+
+    /**
+     * Appends the deletion of every listed cart that exists. Must run before the carts are
+     * deleted.
+     */
+    public void appendCartsDeleted(Collection<Long> cartIds) {
+        if (!enabled || cartIds.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(cartIds.size() + 2);
+        args.add(CartChangeType.CART_DELETED.name());
+        args.add(Timestamp.from(Instant.now()));
+        args.addAll(cartIds);
+        jdbcTemplate.update("INSERT INTO tb_cart_changes (change_type, cart_id, occurred_at) "
+                + "SELECT ?, id, ? FROM tb_carts WHERE id IN ("
+                + String.join(", ", Collections.nCopies(cartIds.size(), "?")) + ")", args.toArray());
+    }
+
+    /**
+     * Published changes with an offset greater than {@code afterOffset}, in offset order.
+     */
+    List<CartChange> findPublishedAfter(long afterOffset, int limit) {
+        return jdbcTemplate.query(SELECT + "WHERE change_offset > ? ORDER BY change_offset LIMIT ?",
+                (rs, rowNum) -> new CartChange(rs.getLong(1), CartChangeType.valueOf(rs.getString(2)),
+                        rs.getObject(3, Long.class), rs.getObject(4, Long.class), rs.getString(5),
+                        rs.getTimestamp(6).toInstant()),
+                afterOffset, limit);
+    }
+
+    /**
+     * Ids and append times of changes without an offset, oldest first.
+     */
+    List<Unpublished> findUnpublished(int limit) {
+        return jdbcTemplate.query("SELECT id, occurred_at FROM tb_cart_changes WHERE change_offset IS NULL "
+                        + "ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new Unpublished(rs.getLong(1), rs.getTimestamp(2).toInstant()), limit);
+    }
+
+    /**
+     * Gives the changes consecutive offsets following {@code lastOffset}, in the order given.
+     *
+     * @return {@code false} when one of them already had an offset
+     */
+    boolean assignOffsets(List<Unpublished> changes, long lastOffset) {
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE tb_cart_changes SET change_offset = ? "
+                        + "WHERE id = ? AND change_offset IS NULL",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, lastOffset + 1 + i);
+                        ps.setLong(2, changes.get(i).id());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return changes.size();
+                    }
+                });
+        return Arrays.stream(updated).allMatch(count -> count == 1 || count == Statement.SUCCESS_NO_INFO);
+    }
+
+    /**
+     * The offset of the last published change, 0 before the first one.
+     */
+    long lastOffset() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(change_offset), 0) FROM tb_cart_changes", Long.class);
+    }
+
+    /**
+     * The offset of the oldest retained change, if any is published.
+     */
+    Optional<Long> firstOffset() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject("SELECT MIN(change_offset) FROM tb_cart_changes",
+                Long.class));
+    }
+
+    /**
+     * Deletes published changes that happened before {@code before}, always keeping the last one
+     * so the offsets carry on from it.
+     */
+    int deletePublishedBefore(Instant before) {
+        return jdbcTemplate.update("DELETE FROM tb_cart_changes WHERE occurred_at < ? AND change_offset < "
+                + "(SELECT MAX(change_offset) FROM tb_cart_changes)", Timestamp.from(before));
+    }
+
+    record Unpublished(long id, Instant occurredAt) {
+    }
+}
@@ -0,0 +1,311 @@
+package code.with.vanilson.market.changes;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CartChangeRelay
+ * <p>
+ * Publishes the changes appended to the {@link CartChangeOutbox} and pushes them to the
+ * subscribers of {@code /api/carts/changes}. Every {@code market.changes.relay-interval} a
+ * single thread gives the committed changes without an offset the next consecutive offsets,
+ * in batches of {@code batch-size}, and then sends every subscriber the changes after its own
+ * offset. Offsets are assigned after commit rather than taken from the row id, so a consumer
+ * resuming from an offset never skips a change that was committed late. The
+ * {@link CartChangeListener} beans get every published change too, before the subscribers.
+ * <p>
+ * The relay thread never writes to a client itself. Each subscriber has a queue of at most
+ * {@code subscriber-queue} events, sent by a thread of its own while it has any; a subscriber
+ * whose queue is full gets no more until it has room, and reads what it missed from the outbox
+ * later. A subscriber whose client has not taken an event for {@code send-timeout} is completed
+ * and dropped, so a stalled client only ever holds its own thread.
+ * <p>
+ * A subscriber that is behind, such as one resuming from an old offset, is sent one batch per
+ * run from the outbox until it catches up. Idle subscribers get a heartbeat comment every
+ * {@code heartbeat}. Published changes are kept for {@code retention}; resuming from an older
+ * offset is refused with 410.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Component
+@ConditionalOnProperty(prefix = "market.changes", name = "enabled", havingValue = "true")
+public class CartChangeRelay {
+    private static final Logger log = LoggerFactory.getLogger(CartChangeRelay.class);
+
+    private final CartChangeOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration relayInterval;
+    private final Duration retention;
+    private final long heartbeatMillis;
+    private final long subscriptionTimeoutMillis;
+    private final int subscriberQueue;
+    private final long sendTimeoutMillis;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final List<CartChangeListener> listeners;
+    private final ScheduledExecutorService relay = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "cart-change-relay"));
+    private final ExecutorService senders = Executors.newCachedThreadPool(
+            runnable -> new Thread(runnable, "cart-change-sender"));
+    private final Counter published;
+    private final Counter dropped;
+    private final Timer lag;
+    private volatile long head;
+
+    public CartChangeRelay(CartChangeOutbox outbox, TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry, ObjectProvider<CartChangeListener> listeners,
+                           @Value("${market.changes.batch-size:500}") int batchSize,
+                           @Value("${market.changes.relay-interval:100ms}") Duration relayInterval,
+                           @Value("${market.changes.retention:7d}") Duration retention,
+                           @Value("${market.changes.heartbeat:15s}") Duration heartbeat,
+                           @Value("${market.changes.subscription-timeout:30m}") Duration subscriptionTimeout,
+                           @Value("${market.changes.subscriber-queue:1000}") int subscriberQueue,
+                           @Value("${market.changes.send-timeout:10s}") Duration sendTimeout) {
+        this.outbox = outbox;
+        this.transactionTemplate = transactionTemplate;
+        this.listeners = listeners.orderedStream().toList();
+        this.batchSize = batchSize;
+        this.relayInterval = relayInterval;
+        this.retention = retention;
+        this.heartbeatMillis = heartbeat.toMillis();
+        this.subscriptionTimeoutMillis = subscriptionTimeout.toMillis();
+        this.subscriberQueue = subscriberQueue;
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+
+        this.published = Counter.builder("market.changes.published")
+                .description("Cart changes given an offset")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("market.changes.dropped")
+                .description("Subscriptions dropped because their client stopped reading")
+                .register(meterRegistry);
+        this.lag = Timer.builder("market.changes.lag")
+                .description("Time from committing a cart change to its publication")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("market.changes.subscribers", subscribers, List::size)
+                .description("Open change feed subscriptions")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        head = outbox.lastOffset();
+        long interval = relayInterval.toMillis();
+        relay.scheduleWithFixedDelay(this::relay, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        relay.shutdown();
+        relay.awaitTermination(30, TimeUnit.SECONDS);
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Opens a subscription to the changes after {@code afterOffset}, or to the changes from now
+     * on when it is {@code null}.
+     */
+    public SseEmitter subscribe(Long afterOffset) {
+        return subscribe(afterOffset, new SseEmitter(subscriptionTimeoutMillis));
+    }
+
+    SseEmitter subscribe(Long afterOffset, SseEmitter emitter) {
+        long after = afterOffset == null ? head : afterOffset;
+        if (afterOffset != null) {
+            outbox.firstOffset()
+                    .filter(first -> after < first - 1)
+                    .ifPresent(first -> {
+                        throw new ChangeOffsetGoneException("Changes after offset " + after
+                                + " are no longer retained, the oldest offset is " + first);
+                    });
+        }
+        Subscriber subscriber = new Subscriber(emitter, after, subscriberQueue);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Publishes and delivers until both are drained; a failed run is retried on the next one.
+     */
+    void relay() {
+        try {
+            while (publishBatch() == batchSize) {
+                // More is waiting, keep going without waiting for the next run
+            }
+            while (deliver() == batchSize) {
+                // Likewise
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Another relay published the same cart changes first", e);
+        } catch (RuntimeException e) {
+            log.warn("Relaying cart changes failed, retrying in {}", relayInterval, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${market.changes.purge-interval:PT1H}")
+    public void purgePublished() {
+        outbox.deletePublishedBefore(Instant.now().minus(retention));
+    }
+
+    private int publishBatch() {
+        List<CartChangeOutbox.Unpublished> batch = transactionTemplate.execute(status -> {
+            List<CartChangeOutbox.Unpublished> unpublished = outbox.findUnpublished(batchSize);
+            if (!unpublished.isEmpty() && !outbox.assignOffsets(unpublished, outbox.lastOffset())) {
+                // Another relay got there first
+                status.setRollbackOnly();
+                return List.of();
+            }
+            return unpublished;
+        });
+        Instant now = Instant.now();
+        batch.forEach(change -> lag.record(Duration.between(change.occurredAt(), now)));
+        published.increment(batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Passes the newly published changes to the listeners, then queues them for the subscribers
+     * that are up to date and the next batch for those that are behind.
+     *
+     * @return the number of newly published changes
+     */
+    private int deliver() {
+        long from = head;
+        if (subscribers.isEmpty() && listeners.isEmpty()) {
+            head = outbox.lastOffset();
+            return 0;
+        }
+        List<CartChange> live = outbox.findPublishedAfter(from, batchSize);
+        if (!live.isEmpty()) {
+            listeners.forEach(listener -> listener.onChanges(live));
+            head = live.get(live.size() - 1).offset();
+        }
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            int room = Math.min(batchSize, subscriber.pending.remainingCapacity());
+            List<CartChange> changes = subscriber.offset >= from
+                    ? live.stream().filter(change -> change.offset() > subscriber.offset).toList()
+                    : room == 0 ? List.of() : outbox.findPublishedAfter(subscriber.offset, room);
+            enqueue(subscriber, changes, now);
+        }
+        return live.size();
+    }
+
+    /**
+     * Queues as many of the changes as the subscriber has room for; the rest wait in the outbox.
+     */
+    private void enqueue(Subscriber subscriber, List<CartChange> changes, long now) {
+        long sendingSince = subscriber.sendingSince;
+        if (sendingSince != 0 && now - sendingSince > sendTimeoutMillis) {
+            drop(subscriber);
+            return;
+        }
+        if (changes.isEmpty()) {
+            if (now - subscriber.lastQueued >= heartbeatMillis && subscriber.pending.isEmpty()) {
+                subscriber.pending.offer(SseEmitter.event().comment("heartbeat"));
+                subscriber.lastQueued = now;
+            }
+        } else {
+            for (CartChange change : changes) {
+                if (!subscriber.pending.offer(SseEmitter.event()
+                        .id(String.valueOf(change.offset()))
+                        .data(change, MediaType.APPLICATION_JSON))) {
+                    break;
+                }
+                subscriber.offset = change.offset();
+                subscriber.lastQueued = now;
+            }
+        }
+        drain(subscriber);
+    }
+
+    private void drain(Subscriber subscriber) {
+        if (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> sendPending(subscriber));
+        }
+    }
+
+    private void sendPending(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.pending.poll()) != null) {
+                subscriber.sendingSince = System.currentTimeMillis();
+                subscriber.emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the subscription timed out
+            subscribers.remove(subscriber);
+            subscriber.pending.clear();
+        } finally {
+            subscriber.sendingSince = 0;
+            subscriber.draining.set(false);
+        }
+        // Queued after the last poll but before draining was cleared
+        drain(subscriber);
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Dropping a change feed subscriber that took no event for {} ms", sendTimeoutMillis);
+            subscriber.pending.clear();
+            subscriber.emitter.complete();
+            dropped.increment();
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        /**
+         * The offset of the last change queued.
+         */
+        private volatile long offset;
+        private long lastQueued;
+        /**
+         * When the send in progress started, 0 when none is.
+         */
+        private volatile long sendingSince;
+
+        private Subscriber(SseEmitter emitter, long offset, int queueSize) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(queueSize);
+            this.offset = offset;
+            this.lastQueued = System.currentTimeMillis();
+        }
+    }
+}
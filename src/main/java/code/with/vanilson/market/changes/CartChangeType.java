@@ -0,0 +1,19 @@
+package code.with.vanilson.market.changes;
+
+/**
+ * CartChangeType
+ * <p>
+ * What a {@link CartChange} records. Deleting a cart deletes its items with it, so a
+ * {@link #CART_DELETED} is not followed by an {@link #ITEM_DELETED} for each of them.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public enum CartChangeType {
+    CART_CREATED,
+    CART_DELETED,
+    ITEM_CREATED,
+    ITEM_UPDATED,
+    ITEM_DELETED
+}
@@ -0,0 +1,20 @@
+package code.with.vanilson.market.changes;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * ChangeOffsetGoneException
+ * <p>
+ * A consumer asked to resume the change feed after changes that are no longer retained.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@ResponseStatus(HttpStatus.GONE)
+public class ChangeOffsetGoneException extends RuntimeException {
+    public ChangeOffsetGoneException(String message) {
+        super(message);
+    }
+}
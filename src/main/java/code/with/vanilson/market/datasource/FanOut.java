@@ -0,0 +1,53 @@
+package code.with.vanilson.market.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * FanOut
+ * <p>
+ * Runs a service call on every shard in turn, each in a transaction of its own, and merges
+ * the results. Only takes effect when sharding is enabled, see {@link ShardRoutingAspect}.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface FanOut {
+
+    enum Merge {
+        /**
+         * The lists of the shards one after the other, which keeps id order. A shard that
+         * reports the resource as not found contributes nothing, the call only fails when every
+         * shard does.
+         */
+        CONCAT,
+        /**
+         * The sum of the counts of the shards.
+         */
+        SUM,
+        /**
+         * The results of the shards combined with {@link Mergeable#merge}.
+         */
+        REDUCE
+    }
+
+    Merge value() default Merge.CONCAT;
+
+    /**
+     * SpEL expression over the method parameters giving the most elements the merged list may
+     * have, {@code null} for no limit. Without {@link #orderBy} the shards after the one that
+     * fills the list are not asked.
+     */
+    String limit() default "";
+
+    /**
+     * SpEL expression over an element giving the value the merged list is sorted by, when the
+     * call does not return its elements in id order.
+     */
+    String orderBy() default "";
+}
@@ -0,0 +1,16 @@
+package code.with.vanilson.market.datasource;
+
+/**
+ * Mergeable
+ * <p>
+ * A result computed on one shard that can be combined with the same result of another, see
+ * {@link FanOut.Merge#REDUCE}.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public interface Mergeable<T extends Mergeable<T>> {
+
+    T merge(T other);
+}
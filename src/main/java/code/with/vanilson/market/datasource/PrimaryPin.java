@@ -0,0 +1,31 @@
+package code.with.vanilson.market.datasource;
+
+/**
+ * PrimaryPin
+ * <p>
+ * Marks the current thread as needing to see its client's latest writes, so its read-only
+ * transactions go to the primary instead of a replica. Set and cleared by
+ * {@link ReadYourWritesFilter} around each request.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public final class PrimaryPin {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private PrimaryPin() {
+    }
+
+    public static void set() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+
+    public static boolean isSet() {
+        return PINNED.get() != null;
+    }
+}
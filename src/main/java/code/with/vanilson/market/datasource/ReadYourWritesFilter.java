@@ -0,0 +1,79 @@
+package code.with.vanilson.market.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * ReadYourWritesFilter
+ * <p>
+ * Keeps a client on the primary for as long as the replicas may lag behind its writes. Every
+ * write request runs pinned to the primary and answers with a {@value #COOKIE} cookie holding
+ * the time until which the client's reads stay there, {@code max-lag} from now; requests still
+ * carrying an unexpired cookie are pinned as well. Other clients keep reading from the
+ * replicas.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String COOKIE = "market-primary-until";
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final Duration maxLag;
+
+    public ReadYourWritesFilter(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = WRITE_METHODS.contains(request.getMethod());
+        if (write) {
+            // Set up front, the response may be committed by the time the chain returns
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, Long.toString(now + maxLag.toMillis()))
+                    .path("/")
+                    .httpOnly(true)
+                    .maxAge(maxLag.toSeconds() + 1)
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+        if (write || pinnedUntil(request) > now) {
+            PrimaryPin.set();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PrimaryPin.clear();
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
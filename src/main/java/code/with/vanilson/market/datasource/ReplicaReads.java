@@ -0,0 +1,28 @@
+package code.with.vanilson.market.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * ReplicaReads
+ * <p>
+ * Tells whether the read-only transactions of the current thread go to a replica, which may be
+ * behind the primary. Referenced as {@code @replicaReads} by the caches, so that they are only
+ * filled from the primary (see {@code cart.CacheConfig}).
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Component("replicaReads")
+public class ReplicaReads {
+    private final boolean enabled;
+
+    public ReplicaReads(@Value("${market.datasource.replicas.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isReplicaRead() {
+        return enabled && !PrimaryPin.isSet();
+    }
+}
@@ -0,0 +1,40 @@
+package code.with.vanilson.market.datasource;
+
+/**
+ * ShardContext
+ * <p>
+ * The shard the current thread's transactions run on, read by {@link ShardRoutingDataSource}
+ * when a transaction takes its connection and by {@link ShardedSequenceGenerator} when it
+ * numbers a new row. Set by {@link ShardRoutingAspect} around each sharded service call;
+ * a thread that never set it works on shard 0.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static int current() {
+        Integer shard = SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * Makes {@code shard} the current shard, or clears it when {@code null}.
+     *
+     * @return the shard set before, to be passed back once the work on {@code shard} is done
+     */
+    public static Integer swap(Integer shard) {
+        Integer previous = SHARD.get();
+        if (shard == null) {
+            SHARD.remove();
+        } else {
+            SHARD.set(shard);
+        }
+        return previous;
+    }
+}
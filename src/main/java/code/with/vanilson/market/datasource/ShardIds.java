@@ -0,0 +1,46 @@
+package code.with.vanilson.market.datasource;
+
+/**
+ * ShardIds
+ * <p>
+ * Cart and item ids carry the shard their cart lives on in the bits above
+ * {@value #SHARD_SHIFT}: {@code id = shard << 44 | local id}. The shard of a cart or item is
+ * therefore read from its id, without a directory or a rehash when shards are added, and ids
+ * stay unique across shards that each number their rows from 1. Shard 0 ids are the plain
+ * sequence values, so every id issued before sharding was enabled still names shard 0.
+ * <p>
+ * The ids of one shard are all below those of the next, so id order is shard order.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public final class ShardIds {
+    public static final int SHARD_SHIFT = 44;
+    /**
+     * Keeps every id below 2^53, so it survives a round trip through a JavaScript number.
+     */
+    public static final int MAX_SHARDS = 512;
+    private static final long LOCAL_MASK = (1L << SHARD_SHIFT) - 1;
+
+    private ShardIds() {
+    }
+
+    /**
+     * The id of the row numbered {@code localId} on {@code shard}.
+     */
+    public static long encode(int shard, long localId) {
+        if (shard < 0 || shard >= MAX_SHARDS || localId < 0 || localId > LOCAL_MASK) {
+            throw new IllegalArgumentException("Cannot encode local id " + localId + " of shard " + shard);
+        }
+        return (long) shard << SHARD_SHIFT | localId;
+    }
+
+    /**
+     * The shard holding the cart or item {@code id}. Negative ids name no shard and give
+     * {@link #MAX_SHARDS} or more.
+     */
+    public static int shardOf(long id) {
+        return (int) (id >>> SHARD_SHIFT);
+    }
+}
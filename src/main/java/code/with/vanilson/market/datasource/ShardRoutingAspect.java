@@ -0,0 +1,151 @@
+package code.with.vanilson.market.datasource;
+
+import code.with.vanilson.market.cart.ResourceNotFoundException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ShardRoutingAspect
+ * <p>
+ * Picks the shard of every {@link ShardedBy} service call and runs every {@link FanOut} call
+ * once per shard, by setting the {@link ShardContext} before the transaction starts and takes
+ * its connection. Ordered ahead of the transaction advice for that reason, so each shard of
+ * a fan-out gets a transaction of its own; a fan-out is therefore not atomic across shards.
+ * New carts go to the shards in turn.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Aspect
+public class ShardRoutingAspect implements Ordered {
+
+    private final ShardRoutingDataSource shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public ShardRoutingAspect(ShardRoutingDataSource shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @Around("@annotation(shardedBy)")
+    public Object route(ProceedingJoinPoint joinPoint, ShardedBy shardedBy) throws Throwable {
+        int shard;
+        if (shardedBy.value().isEmpty()) {
+            shard = Math.floorMod(nextShard.getAndIncrement(), shards.shardCount());
+        } else {
+            Object id = evaluate(shardedBy.value(), joinPoint);
+            shard = id instanceof Number number ? ShardIds.shardOf(number.longValue()) : 0;
+        }
+        // Rows naming a missing shard are looked up, and not found, on shard 0
+        return proceedOn(shard < shards.shardCount() ? shard : 0, joinPoint);
+    }
+
+    @Around("@annotation(fanOut)")
+    public Object fanOut(ProceedingJoinPoint joinPoint, FanOut fanOut) throws Throwable {
+        return switch (fanOut.value()) {
+            case CONCAT -> concat(joinPoint, fanOut);
+            case SUM -> sum(joinPoint);
+            case REDUCE -> reduce(joinPoint);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Object> concat(ProceedingJoinPoint joinPoint, FanOut fanOut) throws Throwable {
+        Object limitValue = fanOut.limit().isEmpty() ? null : evaluate(fanOut.limit(), joinPoint);
+        int limit = limitValue == null ? Integer.MAX_VALUE : ((Number) limitValue).intValue();
+        boolean sorted = !fanOut.orderBy().isEmpty();
+        List<Object> merged = new ArrayList<>();
+        ResourceNotFoundException notFound = null;
+        int found = 0;
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            Object result;
+            try {
+                result = proceedOn(shard, joinPoint);
+            } catch (ResourceNotFoundException e) {
+                notFound = e;
+                continue;
+            }
+            found++;
+            if (result instanceof Collection<?> elements) {
+                merged.addAll(elements);
+            }
+            if (!sorted && merged.size() >= limit) {
+                break;
+            }
+        }
+        if (found == 0 && notFound != null) {
+            throw notFound;
+        }
+        if (((MethodSignature) joinPoint.getSignature()).getReturnType() == void.class) {
+            return null;
+        }
+        if (sorted) {
+            Expression orderBy = expression(fanOut.orderBy());
+            merged.sort(Comparator.comparing(element -> (Comparable) orderBy.getValue(element)));
+        }
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    private Object sum(ProceedingJoinPoint joinPoint) throws Throwable {
+        long sum = 0;
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            sum += ((Number) proceedOn(shard, joinPoint)).longValue();
+        }
+        Class<?> type = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        return type == int.class || type == Integer.class ? (Object) Math.toIntExact(sum) : (Object) sum;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object reduce(ProceedingJoinPoint joinPoint) throws Throwable {
+        Mergeable merged = null;
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            Mergeable result = (Mergeable) proceedOn(shard, joinPoint);
+            merged = merged == null ? result : merged.merge(result);
+        }
+        return merged;
+    }
+
+    private static Object proceedOn(int shard, ProceedingJoinPoint joinPoint) throws Throwable {
+        Integer previous = ShardContext.swap(shard);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ShardContext.swap(previous);
+        }
+    }
+
+    private Object evaluate(String expression, ProceedingJoinPoint joinPoint) {
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(null,
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), joinPoint.getArgs(), parameterNames);
+        return expression(expression).getValue(context);
+    }
+
+    private Expression expression(String expression) {
+        return expressions.computeIfAbsent(expression, parser::parseExpression);
+    }
+}
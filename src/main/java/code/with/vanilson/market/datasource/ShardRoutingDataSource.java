@@ -0,0 +1,66 @@
+package code.with.vanilson.market.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ShardRoutingDataSource
+ * <p>
+ * The application DataSource when sharding is enabled: hands out connections from the shard
+ * of the current thread (see {@link ShardContext}). Shard 0 is {@code spring.datasource}, a
+ * shard outside the configured ones falls back to it, where the rows it names are not found.
+ * Owns the pools of the other shards and closes them with the context.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<DataSource> shards;
+    private final List<HikariDataSource> ownedShards;
+
+    ShardRoutingDataSource(DataSource firstShard, List<HikariDataSource> otherShards) {
+        this.ownedShards = List.copyOf(otherShards);
+        List<DataSource> all = new ArrayList<>(otherShards.size() + 1);
+        all.add(firstShard);
+        all.addAll(otherShards);
+        this.shards = List.copyOf(all);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(firstShard);
+        setLenientFallback(false);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * The DataSource of one shard, bypassing the routing.
+     */
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        int shard = ShardContext.current();
+        return shard < shards.size() ? shard : 0;
+    }
+
+    @Override
+    public void close() {
+        ownedShards.forEach(HikariDataSource::close);
+    }
+}
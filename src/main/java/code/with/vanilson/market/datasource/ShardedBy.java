@@ -0,0 +1,27 @@
+package code.with.vanilson.market.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ShardedBy
+ * <p>
+ * Runs a service call on a single shard, the one of the cart or item it works on. Only takes
+ * effect when sharding is enabled, see {@link ShardRoutingAspect}.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ShardedBy {
+
+    /**
+     * SpEL expression over the method parameters, like a cache key, giving the id of the cart
+     * or item. Left empty for a call creating a cart, which goes to the next shard in turn.
+     */
+    String value() default "";
+}
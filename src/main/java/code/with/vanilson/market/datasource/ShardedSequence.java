@@ -0,0 +1,34 @@
+package code.with.vanilson.market.datasource;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ShardedSequence
+ * <p>
+ * Generates the id of an entity from a pooled sequence of the shard it is created on, see
+ * {@link ShardedSequenceGenerator}.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@IdGeneratorType(ShardedSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ShardedSequence {
+
+    /**
+     * Name of the sequence, present on every shard.
+     */
+    String value();
+
+    /**
+     * Must match the INCREMENT BY of the sequence.
+     */
+    int allocationSize() default 50;
+}
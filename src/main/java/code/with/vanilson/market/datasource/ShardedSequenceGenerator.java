@@ -0,0 +1,79 @@
+package code.with.vanilson.market.datasource;
+
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ShardedSequenceGenerator
+ * <p>
+ * Pooled sequence ids that carry the shard of the row (see {@link ShardIds}). The sequence is
+ * read on the connection of the current transaction, that is on the shard it runs on, and
+ * every shard has a block of its own: a sequence value {@code v} reserves the local ids
+ * {@code (v - allocationSize, v]}, the way Hibernate's pooled optimizer does, so the inserts
+ * are still batched. Without sharding everything runs on shard 0 and the ids are the plain
+ * sequence values.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public class ShardedSequenceGenerator implements IdentifierGenerator {
+
+    private static final class Block {
+        private long next = 1;
+        private long last;
+    }
+
+    private final String sequence;
+    private final int allocationSize;
+    private final Map<Integer, Block> blocks = new ConcurrentHashMap<>();
+
+    public ShardedSequenceGenerator(ShardedSequence config, Member member, CustomIdGeneratorCreationContext context) {
+        this.sequence = config.value();
+        this.allocationSize = config.allocationSize();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        int shard = ShardContext.current();
+        Block block = blocks.computeIfAbsent(shard, key -> new Block());
+        synchronized (block) {
+            if (block.next > block.last) {
+                long value = nextValue(session);
+                block.next = value - allocationSize + 1;
+                block.last = value;
+            }
+            return ShardIds.encode(shard, block.next++);
+        }
+    }
+
+    private long nextValue(SharedSessionContractImplementor session) {
+        String sql = session.getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(sequence);
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement statement = jdbc.getStatementPreparer().prepareStatement(sql);
+        try {
+            ResultSet resultSet = jdbc.getResultSetReturn().extract(statement, sql);
+            try {
+                resultSet.next();
+                return resultSet.getLong(1);
+            } finally {
+                jdbc.getLogicalConnection().getResourceRegistry().release(resultSet, statement);
+            }
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper()
+                    .convert(e, "Could not read the next value of " + sequence, sql);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(statement);
+            jdbc.afterStatementExecution();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package code.with.vanilson.market.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ShardingConfig
+ * <p>
+ * Spreads the carts, each with its items, over several databases: shard 0 is the
+ * {@code spring.datasource}, the others are listed in {@code market.datasource.shards.urls}
+ * and share its credentials and {@code spring.datasource.hikari} settings. New carts go to
+ * the shards in turn and their ids, as well as those of their items, encode the shard (see
+ * {@link ShardIds}), so every later call on them is routed by its id alone. Calls over all
+ * carts or items run on every shard and merge the results, see {@link ShardRoutingAspect}.
+ * Flyway migrates every shard; the tables that are not about carts, idempotency keys for
+ * one, live on shard 0.
+ * <p>
+ * Read replicas, the serial number index, item write-behind and the change feed all assume a
+ * single database and cannot be enabled together with the shards.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "market.datasource.shards", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+    private static final List<String> SINGLE_DATABASE_FEATURES = List.of("market.datasource.replicas.enabled",
+            "market.items.serial-index.enabled", "market.items.write-behind.enabled", "market.changes.enabled");
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource firstShardDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(@Qualifier("firstShardDataSource") DataSource firstShardDataSource,
+                                             DataSourceProperties properties, Environment environment,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${market.datasource.shards.urls}") List<String> urls) {
+        for (String feature : SINGLE_DATABASE_FEATURES) {
+            if (environment.getProperty(feature, Boolean.class, false)) {
+                throw new IllegalStateException(feature + " cannot be combined with market.datasource.shards");
+            }
+        }
+        if (urls.size() + 1 > ShardIds.MAX_SHARDS) {
+            throw new IllegalStateException("At most " + ShardIds.MAX_SHARDS + " shards are supported");
+        }
+        List<HikariDataSource> shards = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariDataSource shard = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url)
+                    .build();
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+            shard.setPoolName("market-shard-" + (shards.size() + 1));
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(firstShardDataSource, shards);
+    }
+
+    /**
+     * The routing under its own bean as well, as the {@code dataSource} bean may be wrapped,
+     * see {@link code.with.vanilson.market.metrics.MetricsConfig}.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return shardRoutingDataSource;
+    }
+
+    @Bean
+    public ShardRoutingAspect shardRoutingAspect(ShardRoutingDataSource dataSource) {
+        return new ShardRoutingAspect(dataSource);
+    }
+
+    /**
+     * Spring Boot migrates shard 0, the other shards get the same migrations.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource dataSource) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < dataSource.shardCount(); shard++) {
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource.shard(shard))
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package code.with.vanilson.market.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * IdempotencyConfig
+ * <p>
+ * Applies {@link IdempotencyFilter} to the create endpoints and schedules the purge of
+ * expired keys. Clients are told apart as for admission control, by
+ * {@code market.admission.api-key-header}.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Configuration
+@EnableScheduling
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyStore store,
+            @Value("${market.admission.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${market.idempotency.max-body-size:1MB}") DataSize maxBodySize) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(store, apiKeyHeader, maxBodySize.toBytes()));
+        registration.addUrlPatterns("/api/carts/create-cart", "/api/items/create-item");
+        return registration;
+    }
+}
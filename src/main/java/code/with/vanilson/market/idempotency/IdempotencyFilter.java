@@ -0,0 +1,249 @@
+package code.with.vanilson.market.idempotency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * IdempotencyFilter
+ * <p>
+ * Makes create requests sent with an {@value #IDEMPOTENCY_KEY} header safe to retry. The first
+ * request with a key runs normally and its successful response is stored; a retry with the
+ * same key and body gets the stored response back, marked with {@value #REPLAYED}, without
+ * reaching the controller. A retry while the first request is still running is answered with
+ * 409, and a key reused for a different request with 422. Failed requests release their key.
+ * <p>
+ * Keys are scoped to the client, told apart by its {@code api-key-header} or else its address,
+ * so two clients picking the same key do not see each other's responses. A request is the
+ * same when its method, path, {@code Content-Type}, {@code Accept} and body are. Bodies above
+ * {@code max-body-size} are rejected with 413 before anything is stored.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String REPLAYED = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final String apiKeyHeader;
+    private final long maxBodySize;
+
+    public IdempotencyFilter(IdempotencyStore store, String apiKeyHeader, long maxBodySize) {
+        this.store = store;
+        this.apiKeyHeader = apiKeyHeader;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    IDEMPOTENCY_KEY + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        if (request.getContentLengthLong() > maxBodySize) {
+            sendBodyTooLarge(response);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(Math.toIntExact(maxBodySize + 1));
+        if (body.length > maxBodySize) {
+            sendBodyTooLarge(response);
+            return;
+        }
+        String requestHash = hash(request, body);
+        key = storedKey(client(request), key);
+
+        Optional<StoredResponse> existing = store.find(key);
+        if (existing.isPresent()) {
+            replay(existing.get(), requestHash, response);
+            return;
+        }
+        if (!store.claim(key, requestHash)) {
+            // Another request with the same key got in first
+            Optional<StoredResponse> stored = store.find(key);
+            if (stored.isEmpty()) {
+                // The other request failed and released the key in the meantime
+                response.sendError(HttpStatus.CONFLICT.value(), "Request with this " + IDEMPOTENCY_KEY
+                        + " was not completed, retry");
+            } else {
+                replay(stored.get(), requestHash, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+            if (HttpStatus.valueOf(cachingResponse.getStatus()).is2xxSuccessful()) {
+                store.complete(key, new StoredResponse(requestHash, cachingResponse.getStatus(),
+                        cachingResponse.getContentType(), cachingResponse.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.release(key);
+            }
+        }
+        cachingResponse.copyBodyToResponse();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    private void sendBodyTooLarge(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "Requests with an " + IDEMPOTENCY_KEY
+                + " may have at most " + maxBodySize + " bytes of body");
+    }
+
+    private String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        return apiKey == null || apiKey.isBlank() ? "address:" + request.getRemoteAddr() : "key:" + apiKey;
+    }
+
+    /**
+     * The key as stored: a digest of the client and the key sent, a fixed length whatever the
+     * length of both and without the API key in clear.
+     */
+    static String storedKey(String client, String key) {
+        return HexFormat.of().formatHex(sha256Digest().digest((client + '\n' + key).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void replay(StoredResponse stored, String requestHash, HttpServletResponse response)
+            throws IOException {
+        if (!stored.isCompleted()) {
+            response.sendError(HttpStatus.CONFLICT.value(), "Request with this " + IDEMPOTENCY_KEY
+                    + " is still in progress");
+        } else if (!stored.requestHash().equals(requestHash)) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), IDEMPOTENCY_KEY
+                    + " was already used for a different request");
+        } else {
+            response.setStatus(stored.status());
+            response.setContentType(stored.contentType());
+            response.setHeader(REPLAYED, "true");
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    /**
+     * The same key must come with the same request: method, path, content type, accepted types
+     * and body. A replay must not answer a JSON client with the CBOR stored for another one.
+     */
+    private static String hash(HttpServletRequest request, byte[] body) {
+        MessageDigest digest = sha256Digest();
+        digest.update((request.getMethod() + ' ' + request.getRequestURI() + '\n'
+                + request.getHeader(HttpHeaders.CONTENT_TYPE) + '\n'
+                + request.getHeader(HttpHeaders.ACCEPT) + '\n').getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest(body));
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The body has been read to hash it, so the rest of the chain reads it from memory.
+     */
+    static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The whole body is in memory: the listener is told it can read it all, then
+                 * that it has.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
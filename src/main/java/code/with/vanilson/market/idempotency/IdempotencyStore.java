@@ -0,0 +1,164 @@
+package code.with.vanilson.market.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * IdempotencyStore
+ * <p>
+ * Keeps the responses of idempotent requests in {@code tb_idempotency_keys}, behind a bounded
+ * in-memory cache so most replays are answered without a query. Bodies are stored gzipped.
+ * <p>
+ * A key is first claimed with an in-progress row that expires after
+ * {@code market.idempotency.lock-timeout}, so a request that dies half way does not block its
+ * retries for long. Completed responses live for {@code market.idempotency.ttl}; expired rows
+ * are ignored and purged periodically. A response cached from the table, which may have been
+ * stored by another instance long ago, is only cached until its row expires.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Repository
+public class IdempotencyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+    private final Cache<String, Completed> completed;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${market.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${market.idempotency.lock-timeout:1m}") Duration lockTimeout,
+                            @Value("${market.idempotency.cache-size:10000}") long cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilExpired())
+                .build();
+    }
+
+    public Optional<StoredResponse> find(String key) {
+        Completed cached = completed.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached.response());
+        }
+        Optional<Completed> stored = jdbcTemplate.query(
+                "SELECT request_hash, status, content_type, body, expires_at FROM tb_idempotency_keys "
+                        + "WHERE idempotency_key = ? AND expires_at > ?",
+                (rs, rowNum) -> new Completed(new StoredResponse(rs.getString(1), (Integer) rs.getObject(2),
+                        rs.getString(3), decompress(rs.getBytes(4))), rs.getTimestamp(5).toInstant()),
+                key, now()).stream().findFirst();
+        stored.filter(row -> row.response().isCompleted()).ifPresent(row -> completed.put(key, row));
+        return stored.map(Completed::response);
+    }
+
+    /**
+     * Claims the key for a new request.
+     *
+     * @return {@code false} when the key is already taken by a live request or response
+     */
+    public boolean claim(String key, String requestHash) {
+        Timestamp now = now();
+        jdbcTemplate.update("DELETE FROM tb_idempotency_keys WHERE idempotency_key = ? AND expires_at <= ?", key, now);
+        try {
+            jdbcTemplate.update("INSERT INTO tb_idempotency_keys (idempotency_key, request_hash, expires_at) "
+                    + "VALUES (?, ?, ?)", key, requestHash, Timestamp.from(now.toInstant().plus(lockTimeout)));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public void complete(String key, StoredResponse response) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        jdbcTemplate.update("UPDATE tb_idempotency_keys SET status = ?, content_type = ?, body = ?, expires_at = ? "
+                        + "WHERE idempotency_key = ?",
+                response.status(), response.contentType(), compress(response.body()),
+                Timestamp.from(expiresAt), key);
+        completed.put(key, new Completed(response, expiresAt));
+    }
+
+    /**
+     * Frees a key whose request failed, so it can be retried.
+     */
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM tb_idempotency_keys WHERE idempotency_key = ? AND status IS NULL", key);
+    }
+
+    @Scheduled(fixedDelayString = "${market.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        jdbcTemplate.update("DELETE FROM tb_idempotency_keys WHERE expires_at <= ?", now());
+    }
+
+    /**
+     * A completed response and the time its row expires.
+     */
+    private record Completed(StoredResponse response, Instant expiresAt) {
+    }
+
+    /**
+     * Expires each cached response with its row, whenever it was cached.
+     */
+    private static final class UntilExpired implements Expiry<String, Completed> {
+
+        @Override
+        public long expireAfterCreate(String key, Completed value, long currentTime) {
+            return Math.max(0L, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Completed value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Completed value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static Timestamp now() {
+        return Timestamp.from(Instant.now());
+    }
+
+    private static byte[] compress(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] body) {
+        if (body == null) {
+            return null;
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package code.with.vanilson.market.idempotency;
+
+/**
+ * StoredResponse
+ * <p>
+ * The response recorded for an idempotency key, with the hash of the request that produced
+ * it. A {@code null} status marks a request that is still in progress.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public record StoredResponse(String requestHash, Integer status, String contentType, byte[] body) {
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
@@ -0,0 +1,67 @@
+package code.with.vanilson.market.metrics;
+
+import code.with.vanilson.market.cart.CartService;
+import code.with.vanilson.market.cart.CartTotals;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * CartStatisticsMetrics
+ * <p>
+ * Gauges for the number of carts and items and the average number of items per cart, read
+ * from the per-cart item counters. The totals are queried at most once per
+ * {@link #REFRESH_INTERVAL}, however often the registry is scraped, through the service so
+ * that they cover every shard.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Component
+public class CartStatisticsMetrics implements MeterBinder {
+    static final Duration REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    /**
+     * Looked up on first use, so binding the meters does not create the service early.
+     */
+    private final ObjectProvider<CartService> cartService;
+    private volatile CartTotals totals;
+    private volatile long refreshedAt;
+
+    public CartStatisticsMetrics(ObjectProvider<CartService> cartService) {
+        this.cartService = cartService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("market.carts", this, metrics -> metrics.totals().carts())
+                .description("Number of carts")
+                .register(registry);
+        Gauge.builder("market.items", this, metrics -> metrics.totals().items())
+                .description("Number of items")
+                .register(registry);
+        Gauge.builder("market.cart.items.average", this, CartStatisticsMetrics::averageItemsPerCart)
+                .description("Average number of items per cart")
+                .register(registry);
+    }
+
+    double averageItemsPerCart() {
+        return totals().averageItemsPerCart();
+    }
+
+    private CartTotals totals() {
+        long now = System.nanoTime();
+        CartTotals current = totals;
+        if (current == null || now - refreshedAt > REFRESH_INTERVAL.toNanos()) {
+            current = cartService.getObject().getCartTotals();
+            totals = current;
+            refreshedAt = now;
+        }
+        return current;
+    }
+}
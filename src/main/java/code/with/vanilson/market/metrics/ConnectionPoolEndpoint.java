@@ -0,0 +1,69 @@
+package code.with.vanilson.market.metrics;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionPoolEndpoint
+ * <p>
+ * {@code /actuator/pool}: the state of the Hikari pool in one place, its configured limits,
+ * the connections in use and the requests waiting for one, with the acquisition wait time and
+ * timeouts recorded since startup. The same values are published as the {@code hikaricp_*}
+ * Prometheus metrics for dashboards and alerts.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Component
+@Endpoint(id = "pool")
+public class ConnectionPoolEndpoint {
+
+    public record PoolSnapshot(String pool, int maximumPoolSize, int minimumIdle, long connectionTimeoutMs,
+                               long leakDetectionThresholdMs, int active, int idle, int total, int pending,
+                               long acquisitions, double acquireMeanMs, double acquireMaxMs, long timeouts) {
+    }
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    public ConnectionPoolEndpoint(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return the pool state, or {@code null} (404) when the DataSource is not a Hikari pool
+     */
+    @ReadOperation
+    public PoolSnapshot pool() {
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class,
+                HikariDataSource.class);
+        if (hikari == null || hikari.getHikariPoolMXBean() == null) {
+            return null;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        String name = hikari.getPoolName();
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", name).timer();
+        Counter timeouts = meterRegistry.find("hikaricp.connections.timeout").tag("pool", name).counter();
+        return new PoolSnapshot(name, hikari.getMaximumPoolSize(), hikari.getMinimumIdle(),
+                hikari.getConnectionTimeout(), hikari.getLeakDetectionThreshold(),
+                pool.getActiveConnections(), pool.getIdleConnections(), pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                acquire == null ? 0 : acquire.count(),
+                acquire == null ? 0 : acquire.mean(TimeUnit.MILLISECONDS),
+                acquire == null ? 0 : acquire.max(TimeUnit.MILLISECONDS),
+                timeouts == null ? 0 : (long) timeouts.count());
+    }
+}
@@ -0,0 +1,42 @@
+package code.with.vanilson.market.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * JdbcStatementCounter
+ * <p>
+ * Counts the statements executed on the current thread through the application's
+ * {@code DataSource}, whether they come from Hibernate or from a {@code JdbcTemplate}. A JDBC
+ * batch is executed once, so the count follows database round trips rather than rows.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public class JdbcStatementCounter implements QueryExecutionListener {
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Counted once the statement has run
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        COUNT.get()[0]++;
+    }
+
+    /**
+     * Returns the statements counted on this thread since the last call and starts over.
+     */
+    public static int reset() {
+        int[] count = COUNT.get();
+        int value = count[0];
+        count[0] = 0;
+        return value;
+    }
+}
@@ -0,0 +1,65 @@
+package code.with.vanilson.market.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * MetricsConfig
+ * <p>
+ * Hot-path instrumentation published on the Prometheus registry:
+ * <ul>
+ *     <li>{@code market.service} timer with a percentile histogram for every method of a class
+ *     annotated with {@code @Timed}, tagged by class, method and exception;</li>
+ *     <li>{@code market.resource.not.found} counter, see {@link ResourceNotFoundMetrics};</li>
+ *     <li>{@code market.carts}, {@code market.items} and {@code market.cart.items.average}
+ *     gauges, see {@link CartStatisticsMetrics};</li>
+ *     <li>{@code market.http.jdbc.statements} summary of the JDBC statements run per request,
+ *     see {@link MetricsWebConfig}. They are counted on the {@code dataSource} bean, so those
+ *     of a {@code JdbcTemplate} are counted along with Hibernate's.</li>
+ * </ul>
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Configuration
+public class MetricsConfig {
+    private static final String APPLICATION_DATA_SOURCE = "dataSource";
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public TimedAspect timedAspect() {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Only the {@code dataSource} bean the application runs on is counted, not the pools the
+     * replica and shard routing put behind it, so that no statement is counted twice.
+     */
+    @Bean
+    public static BeanPostProcessor jdbcStatementCounterPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (APPLICATION_DATA_SOURCE.equals(beanName) && bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new JdbcStatementCounter())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package code.with.vanilson.market.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * MetricsWebConfig
+ * <p>
+ * Registers {@link JdbcStatementMetricsInterceptor} on the API. Kept apart from
+ * {@link MetricsConfig} because web slices load every {@link WebMvcConfigurer} without the
+ * metrics registry; the interceptor is skipped there.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Configuration
+public class MetricsWebConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public MetricsWebConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        meterRegistry.ifAvailable(meters -> registry.addInterceptor(new JdbcStatementMetricsInterceptor(meters))
+                .addPathPatterns("/api/**"));
+    }
+}
@@ -0,0 +1,40 @@
+package code.with.vanilson.market.metrics;
+
+import code.with.vanilson.market.cart.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * ResourceNotFoundMetrics
+ * <p>
+ * Counts every {@link ResourceNotFoundException} thrown by a timed service as
+ * {@code market.resource.not.found}, tagged by class and method.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Aspect
+@Component
+public class ResourceNotFoundMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public ResourceNotFoundMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @AfterThrowing(pointcut = "@within(io.micrometer.core.annotation.Timed)", throwing = "exception")
+    public void count(JoinPoint joinPoint, ResourceNotFoundException exception) {
+        Counter.builder("market.resource.not.found")
+                .description("Lookups of missing carts and items")
+                .tag("class", joinPoint.getSignature().getDeclaringTypeName())
+                .tag("method", joinPoint.getSignature().getName())
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,50 @@
+package code.with.vanilson.market.startup;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * StartupConfig
+ * <p>
+ * Defers springdoc when {@code market.startup.defer-springdoc} is set, as in the {@code prod}
+ * profile: its beans are created on the first request to the API docs or the Swagger UI
+ * instead of during startup. The request mappings stay registered, only the handlers and
+ * the OpenAPI model behind them wait.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "market.startup", name = "defer-springdoc")
+public class StartupConfig {
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+
+    @Bean
+    public static BeanFactoryPostProcessor deferSpringdoc() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                String source = declaringClassName(definition);
+                if (source != null && source.startsWith(SPRINGDOC_PACKAGE)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static String declaringClassName(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                return factoryMethod.getDeclaringClassName();
+            }
+        }
+        return definition.getBeanClassName();
+    }
+}
@@ -0,0 +1,49 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Replaces the identity columns of tb_carts and tb_items with pooled sequences so Hibernate
+ * can assign ids up front and batch the inserts.
+ * <p>
+ * Written in Java because the sequences have to start after the ids already in use, which
+ * cannot be expressed portably in plain SQL for both PostgreSQL and H2.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public class V2__pooled_id_sequences extends BaseJavaMigration {
+
+    /**
+     * Must match the allocationSize of the sequence generators on Cart and Item.
+     */
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        try (Statement statement = context.getConnection().createStatement()) {
+            replaceIdentity(statement, "tb_carts", "tb_carts_seq");
+            replaceIdentity(statement, "tb_items", "tb_items_seq");
+        }
+    }
+
+    private static void replaceIdentity(Statement statement, String table, String sequence) throws SQLException {
+        long maxId;
+        try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            maxId = rs.getLong(1);
+        }
+        // Hibernate's pooled optimizer treats each sequence value as the upper bound of a block,
+        // so the first value must leave a full block above the existing ids.
+        statement.execute("CREATE SEQUENCE " + sequence
+                + " START WITH " + (maxId + ALLOCATION_SIZE)
+                + " INCREMENT BY " + ALLOCATION_SIZE);
+        statement.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY");
+    }
+}
@@ -0,0 +1,2 @@
+-- Optimistic locking for concurrent item updates
+ALTER TABLE tb_items ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
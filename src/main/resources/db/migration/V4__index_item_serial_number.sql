@@ -0,0 +1,2 @@
+-- Scanner lookups by serial number
+CREATE INDEX IF NOT EXISTS idx_tb_items_serial_number ON tb_items (serial_number);
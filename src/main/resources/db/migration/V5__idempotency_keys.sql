@@ -0,0 +1,12 @@
+-- Responses of create requests sent with an Idempotency-Key, replayed on retries.
+-- A row without a status is a request still in progress.
+CREATE TABLE IF NOT EXISTS tb_idempotency_keys (
+                                                   idempotency_key VARCHAR(255) PRIMARY KEY,
+                                                   request_hash    VARCHAR(64)  NOT NULL,
+                                                   status          INTEGER,
+                                                   content_type    VARCHAR(100),
+                                                   body            BYTEA,
+                                                   expires_at      TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_tb_idempotency_keys_expires_at ON tb_idempotency_keys (expires_at);
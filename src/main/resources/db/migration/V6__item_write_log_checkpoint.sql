@@ -0,0 +1,5 @@
+-- Last item write log record flushed to tb_items, updated in the same transaction as the inserts
+CREATE TABLE IF NOT EXISTS tb_item_write_log_checkpoint (
+                                                            log_id        VARCHAR(100) PRIMARY KEY,
+                                                            last_sequence BIGINT       NOT NULL
+);
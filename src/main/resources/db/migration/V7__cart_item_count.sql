@@ -0,0 +1,4 @@
+-- Number of items per cart, kept up to date by every item write so summaries never scan tb_items
+ALTER TABLE tb_carts ADD COLUMN IF NOT EXISTS item_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE tb_carts c SET item_count = (SELECT COUNT(*) FROM tb_items i WHERE i.cart_id = c.id);
@@ -0,0 +1,2 @@
+-- Version of every cart, bumped by each write to one of its items; carts and items are served with it as their ETag
+ALTER TABLE tb_carts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
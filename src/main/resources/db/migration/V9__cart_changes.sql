@@ -0,0 +1,12 @@
+-- Outbox of cart and item changes, appended in the transaction of the change itself.
+-- change_offset is assigned by the relay once the row is committed and is the position consumers
+-- of /api/carts/changes resume from; a row without one is not published yet.
+CREATE TABLE IF NOT EXISTS tb_cart_changes (
+                                               id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                                               change_offset BIGINT UNIQUE,
+                                               change_type   VARCHAR(20) NOT NULL,
+                                               cart_id       BIGINT,
+                                               item_id       BIGINT,
+                                               serial_number VARCHAR(20),
+                                               occurred_at   TIMESTAMP   NOT NULL
+);
@@ -0,0 +1,105 @@
+package code.with.vanilson.market.load;
+
+import code.with.vanilson.market.MarketApplication;
+import code.with.vanilson.market.reactive.ReactiveMarketApplication;
+import code.with.vanilson.market.support.LoadDriver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reactive Stack Load Test
+ * <p>
+ * Compares throughput and latency of the servlet/JPA application and its WebFlux/R2DBC variant
+ * under the same read/write traffic, both against an embedded H2 database. Disabled by default:
+ * <pre>
+ * mvn -Preactive test -Dtest=ReactiveStackLoadTest -Dload.test=true -Dload.concurrency=400 -Dload.duration=30
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "load.test", matches = "true")
+@DisplayName("Reactive Stack Load Test")
+class ReactiveStackLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 200);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration", 15));
+    /**
+     * R2DBC and the reactive repositories are on the classpath of the reactive build only, the
+     * servlet application uses neither.
+     */
+    private static final String SERVLET_EXCLUDES = "spring.autoconfigure.exclude="
+            + "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration,"
+            + "org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration,"
+            + "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration,"
+            + "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration,"
+            + "org.springframework.boot.autoconfigure.data.jdbc.JdbcRepositoriesAutoConfiguration";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @DisplayName("Test servlet stack versus reactive stack")
+    @Test
+    void testStacks_ShouldReportThroughputAndLatency() throws Exception {
+        List<LoadDriver.Result> results = new ArrayList<>();
+        results.addAll(run("servlet", new SpringApplicationBuilder(MarketApplication.class)
+                .profiles("test")
+                .properties(SERVLET_EXCLUDES)));
+        results.addAll(run("reactive", new SpringApplicationBuilder(ReactiveMarketApplication.class)
+                .profiles(ReactiveMarketApplication.PROFILE)
+                .web(WebApplicationType.REACTIVE)));
+
+        System.out.println(LoadDriver.Result.header());
+        results.forEach(System.out::println);
+        assertThat(results).allSatisfy(result -> assertThat(result.requests()).isPositive());
+    }
+
+    private List<LoadDriver.Result> run(String stack, SpringApplicationBuilder application) throws Exception {
+        try (ConfigurableApplicationContext context = application
+                .properties("server.port=0", "logging.level.root=WARN", "spring.devtools.restart.enabled=false")
+                .run()) {
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            long cartId = createCart(base);
+            AtomicLong serial = new AtomicLong();
+
+            LoadDriver.Result cart = LoadDriver.run(stack + " GET /api/carts/{id}", CONCURRENCY, DURATION,
+                    () -> send(HttpRequest.newBuilder(URI.create(base + "/api/carts/" + cartId)).GET()));
+            LoadDriver.Result reads = LoadDriver.run(stack + " GET /api/items page", CONCURRENCY, DURATION,
+                    () -> send(HttpRequest.newBuilder(URI.create(base + "/api/items?after=0&size=20")).GET()));
+            LoadDriver.Result writes = LoadDriver.run(stack + " POST /api/items/create-item", CONCURRENCY, DURATION,
+                    () -> send(HttpRequest.newBuilder(URI.create(base + "/api/items/create-item"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"serialNumber\": \"RS-"
+                                    + serial.incrementAndGet() + "\", \"cart\": {\"id\": " + cartId + "}}"))));
+            return List.of(cart, reads, writes);
+        }
+    }
+
+    private long createCart(String base) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/api/carts/create-cart"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"Load\", \"items\": []}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String body = response.body();
+        return Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+
+    private int send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.timeout(Duration.ofSeconds(10)).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+}
@@ -0,0 +1,78 @@
+package code.with.vanilson.market.reactive;
+
+import code.with.vanilson.market.cart.CartResponse;
+import code.with.vanilson.market.cart.ItemResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reactive Listing Test
+ * <p>
+ * Lists from services whose rows never run out: the first rows must reach the client all the
+ * same, which they only do when the listing is written as it is read.
+ */
+@DisplayName("Reactive Listing Test")
+class ReactiveListingTest {
+    private static final Duration FIRST_ROWS_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ReactiveCartService cartService = mock(ReactiveCartService.class);
+    private final ReactiveItemService itemService = mock(ReactiveItemService.class);
+    private final WebTestClient webTestClient = WebTestClient
+            .bindToController(new ReactiveCartController(cartService), new ReactiveItemController(itemService))
+            .build();
+
+    @DisplayName("Test get all carts - GET /api/carts writes the first carts before the last is read")
+    @Test
+    void testGetAllCarts_ShouldWriteFirstCarts_WhenTableIsStillBeingRead() {
+        // Given
+        when(cartService.getAllCarts()).thenReturn(Flux.concat(
+                Flux.just(new CartResponse(1L, "Streamed", 0, 0L, List.of())), Flux.never()));
+
+        // When
+        String firstRows = firstRows("/api/carts");
+
+        // Then
+        assertThat(firstRows).startsWith("[").contains("\"name\":\"Streamed\"");
+    }
+
+    @DisplayName("Test get all items - GET /api/items writes the first items before the last is read")
+    @Test
+    void testGetAllItems_ShouldWriteFirstItems_WhenTableIsStillBeingRead() {
+        // Given
+        when(itemService.getAllItems()).thenReturn(Flux.concat(
+                Flux.just(new ItemResponse(1L, "STREAMED-1", 1L, 0L)), Flux.never()));
+
+        // When
+        String firstRows = firstRows("/api/items");
+
+        // Then
+        assertThat(firstRows).startsWith("[").contains("\"serialNumber\":\"STREAMED-1\"");
+    }
+
+    private String firstRows(String uri) {
+        return webTestClient.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(DataBuffer.class)
+                .getResponseBody()
+                .next()
+                .map(buffer -> {
+                    String rows = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return rows;
+                })
+                .block(FIRST_ROWS_TIMEOUT);
+    }
+}
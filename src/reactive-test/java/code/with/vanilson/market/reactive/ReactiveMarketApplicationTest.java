@@ -0,0 +1,253 @@
+package code.with.vanilson.market.reactive;
+
+import code.with.vanilson.market.cart.CartResponse;
+import code.with.vanilson.market.cart.ItemResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reactive Market Application Test
+ * <p>
+ * Runs the WebFlux/R2DBC variant against its own H2 database and checks that it answers like
+ * the servlet application: status codes, ETags, keyset paging and the item counters.
+ */
+@SpringBootTest(classes = ReactiveMarketApplication.class, properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+@ActiveProfiles(ReactiveMarketApplication.PROFILE)
+@DisplayName("Reactive Market Application Test")
+class ReactiveMarketApplicationTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    private String prefix;
+    private String serial;
+
+    @BeforeEach
+    void setUp() {
+        prefix = "Reactive " + System.nanoTime() + " ";
+        serial = "R" + System.nanoTime() % 1_000_000_000L;
+    }
+
+    @DisplayName("Test create cart - POST /api/carts/create-cart stores the cart with its items")
+    @Test
+    void testCreateCart_ShouldReturnCartWithItems_WhenCartIsValid() {
+        // Given
+        CartResponse created = createCart(prefix + "cart", serial + "A", serial + "B");
+
+        // When
+        CartResponse found = webTestClient.get().uri("/api/carts/{id}", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"0\"")
+                .expectBody(CartResponse.class)
+                .returnResult().getResponseBody();
+
+        // Then
+        assertThat(found).isNotNull();
+        assertThat(found.itemCount()).isEqualTo(2);
+        assertThat(found.items()).extracting(ItemResponse::serialNumber).containsExactly(serial + "A", serial + "B");
+        assertThat(found.items()).extracting(ItemResponse::id).isEqualTo(created.items().stream()
+                .map(ItemResponse::id).toList());
+    }
+
+    @DisplayName("Test get cart - GET /api/carts/{id} returns 304 while the ETag is current")
+    @Test
+    void testGetCart_ShouldReturnNotModified_WhenETagMatches() {
+        // Given
+        CartResponse created = createCart(prefix + "etag", serial + "A");
+
+        // When / Then
+        webTestClient.get().uri("/api/carts/{id}", created.id())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified();
+        webTestClient.post().uri("/api/items/create-item")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"serialNumber\": \"" + serial + "B\", \"cart\": {\"id\": " + created.id() + "}}")
+                .exchange()
+                .expectStatus().isCreated();
+        webTestClient.get().uri("/api/carts/{id}", created.id())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"1\"")
+                .expectBody().jsonPath("$.itemCount").isEqualTo(2);
+    }
+
+    @DisplayName("Test get cart - GET /api/carts/{id} returns 404 for a missing cart")
+    @Test
+    void testGetCart_ShouldReturnNotFound_WhenCartDoesNotExist() {
+        webTestClient.get().uri("/api/carts/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @DisplayName("Test list carts - GET /api/carts?after=&size= links the next page")
+    @Test
+    void testGetCarts_ShouldLinkNextPage_WhenPageIsFull() {
+        // Given
+        CartResponse first = createCart(prefix + "page 1");
+        createCart(prefix + "page 2");
+
+        // When / Then
+        webTestClient.get().uri("/api/carts?after={after}&size=1", first.id() - 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, link -> assertThat(link)
+                        .contains("after=" + first.id()).contains("size=1").endsWith("rel=\"next\""))
+                .expectBody().jsonPath("$[0].id").isEqualTo(first.id());
+    }
+
+    @DisplayName("Test stream carts - GET /api/carts/stream returns NDJSON")
+    @Test
+    void testStreamCarts_ShouldReturnEveryCart_WhenCartsExist() {
+        // Given
+        CartResponse created = createCart(prefix + "stream", serial + "A");
+
+        // When
+        List<CartResponse> carts = webTestClient.get().uri("/api/carts/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(CartResponse.class)
+                .getResponseBody().collectList().block();
+
+        // Then
+        assertThat(carts).anySatisfy(cart -> {
+            assertThat(cart.id()).isEqualTo(created.id());
+            assertThat(cart.items()).hasSize(1);
+        });
+    }
+
+    @DisplayName("Test update item - PUT /api/items/{id} returns 409 for a stale version")
+    @Test
+    void testUpdateItem_ShouldReturnConflict_WhenVersionIsStale() {
+        // Given
+        CartResponse cart = createCart(prefix + "update", serial + "A");
+        Long itemId = cart.items().get(0).id();
+        String body = "{\"serialNumber\": \"" + serial + "B\", \"cart\": {\"id\": " + cart.id() + "}, \"version\": 0}";
+
+        // When / Then
+        webTestClient.put().uri("/api/items/{id}", itemId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.version").isEqualTo(1);
+        webTestClient.put().uri("/api/items/{id}", itemId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @DisplayName("Test update item - PUT /api/items/{id} returns 400 for a blank serial number")
+    @Test
+    void testUpdateItem_ShouldReturnBadRequest_WhenSerialNumberIsBlank() {
+        // Given
+        CartResponse cart = createCart(prefix + "blank", serial + "A");
+        Long itemId = cart.items().get(0).id();
+
+        // When / Then
+        webTestClient.put().uri("/api/items/{id}", itemId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"serialNumber\": \" \", \"cart\": {\"id\": " + cart.id() + "}}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @DisplayName("Test update item - PUT /api/items/{id} returns 400 for a serial number above 20 characters")
+    @Test
+    void testUpdateItem_ShouldReturnBadRequest_WhenSerialNumberIsTooLong() {
+        // Given
+        CartResponse cart = createCart(prefix + "long", serial + "A");
+        Long itemId = cart.items().get(0).id();
+
+        // When / Then
+        webTestClient.put().uri("/api/items/{id}", itemId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"serialNumber\": \"" + "S".repeat(21) + "\", \"cart\": {\"id\": " + cart.id() + "}}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @DisplayName("Test update item - PUT /api/items/{id} returns 404 for a missing cart")
+    @Test
+    void testUpdateItem_ShouldReturnNotFound_WhenCartDoesNotExist() {
+        // Given
+        CartResponse cart = createCart(prefix + "missing", serial + "A");
+        Long itemId = cart.items().get(0).id();
+        long missingCartId = cart.id() + 1_000_000;
+
+        // When / Then
+        webTestClient.put().uri("/api/items/{id}", itemId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"serialNumber\": \"" + serial + "B\", \"cart\": {\"id\": " + missingCartId + "}}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @DisplayName("Test delete item - DELETE /api/items/{id} updates the cart counter")
+    @Test
+    void testDeleteItem_ShouldDecrementItemCount_WhenItemExists() {
+        // Given
+        CartResponse cart = createCart(prefix + "delete", serial + "A", serial + "B");
+
+        // When
+        webTestClient.delete().uri("/api/items/{id}", cart.items().get(0).id())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        // Then
+        webTestClient.get().uri("/api/carts/{id}", cart.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.itemCount").isEqualTo(1);
+        webTestClient.delete().uri("/api/items/{id}", cart.items().get(0).id())
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.delete().uri("/api/carts/delete-cart/{id}", cart.id())
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri("/api/items/{id}", cart.items().get(1).id())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @DisplayName("Test create item - POST /api/items/create-item returns 404 for a missing cart")
+    @Test
+    void testCreateItem_ShouldReturnNotFound_WhenCartDoesNotExist() {
+        webTestClient.post().uri("/api/items/create-item")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"serialNumber\": \"" + serial + "A\", \"cart\": {\"id\": " + Long.MAX_VALUE + "}}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private CartResponse createCart(String name, String... serialNumbers) {
+        StringBuilder items = new StringBuilder();
+        for (String serialNumber : serialNumbers) {
+            items.append(items.isEmpty() ? "" : ", ").append("{\"serialNumber\": \"").append(serialNumber).append("\"}");
+        }
+        return webTestClient.post().uri("/api/carts/create-cart")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\": \"" + name + "\", \"items\": [" + items + "]}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(CartResponse.class)
+                .returnResult().getResponseBody();
+    }
+}
@@ -0,0 +1,18 @@
+package code.with.vanilson.market.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * CartRow
+ * <p>
+ * A {@code tb_carts} row as written by the reactive stack. Ids come from the pooled
+ * {@code tb_carts_seq} (see {@link PooledIds}), so rows are always inserted with their id.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Table("tb_carts")
+public record CartRow(@Id Long id, String name, int itemCount, long version) {
+}
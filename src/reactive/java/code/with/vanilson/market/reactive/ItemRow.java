@@ -0,0 +1,18 @@
+package code.with.vanilson.market.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * ItemRow
+ * <p>
+ * A {@code tb_items} row as written by the reactive stack, with its id from the pooled
+ * {@code tb_items_seq}.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Table("tb_items")
+public record ItemRow(@Id Long id, String serialNumber, Long cartId, long version) {
+}
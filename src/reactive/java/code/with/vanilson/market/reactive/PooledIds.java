@@ -0,0 +1,75 @@
+package code.with.vanilson.market.reactive;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.stream.LongStream;
+
+/**
+ * PooledIds
+ * <p>
+ * Hands out ids from a pooled sequence the way Hibernate's pooled optimizer does for the JPA
+ * stack: a sequence value {@code v} reserves the block {@code (v - 50, v]}, so both stacks can
+ * insert into the same tables without a round trip per row. When two requests refill at once
+ * the block fetched first is abandoned, which wastes ids but never hands one out twice.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+final class PooledIds {
+    /**
+     * Must match the allocationSize of the sequence generators on Cart and Item.
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    private final DatabaseClient databaseClient;
+    private final String sequence;
+    private long next = 1;
+    private long last;
+
+    PooledIds(DatabaseClient databaseClient, String sequence) {
+        this.databaseClient = databaseClient;
+        this.sequence = sequence;
+    }
+
+    Mono<Long> next() {
+        return next(1).single();
+    }
+
+    Flux<Long> next(int count) {
+        return Flux.defer(() -> {
+            long[] taken = take(count);
+            Flux<Long> ids = Flux.fromStream(LongStream.of(taken).boxed());
+            int missing = count - taken.length;
+            if (missing == 0) {
+                return ids;
+            }
+            return ids.concatWith(refill().thenMany(Flux.defer(() -> next(missing))));
+        });
+    }
+
+    private synchronized long[] take(int count) {
+        int available = (int) Math.min(count, last - next + 1);
+        if (available <= 0) {
+            return new long[0];
+        }
+        long[] ids = LongStream.range(next, next + available).toArray();
+        next += available;
+        return ids;
+    }
+
+    private Mono<Void> refill() {
+        return databaseClient.sql("select nextval('" + sequence + "')")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .doOnNext(this::reserve)
+                .then();
+    }
+
+    private synchronized void reserve(long value) {
+        next = value - ALLOCATION_SIZE + 1;
+        last = value;
+    }
+}
@@ -0,0 +1,104 @@
+package code.with.vanilson.market.reactive;
+
+import code.with.vanilson.market.cart.Cart;
+import code.with.vanilson.market.cart.CartResponse;
+import code.with.vanilson.market.cart.CartTotals;
+import code.with.vanilson.market.cart.ETags;
+import code.with.vanilson.market.cart.KeysetPages;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * ReactiveCartController
+ * <p>
+ * The cart endpoints of {@code cart.CartController} on WebFlux, with the same paths, status
+ * codes, ETags and {@code Link} headers.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@RestController
+@Profile(ReactiveMarketApplication.PROFILE)
+@RequestMapping("/api/carts")
+public class ReactiveCartController {
+    private final ReactiveCartService cartService;
+
+    public ReactiveCartController(ReactiveCartService cartService) {
+        this.cartService = cartService;
+    }
+
+    @PostMapping(value = "create-cart")
+    public Mono<ResponseEntity<CartResponse>> createCart(@RequestBody @Valid Cart cart) {
+        return cartService.createCartWithItems(cart)
+                .map(createdCart -> new ResponseEntity<>(createdCart, HttpStatus.CREATED));
+    }
+
+    /**
+     * Returns the cart with its version as a weak ETag, and 304 when {@code If-None-Match}
+     * still lists it.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<CartResponse>> getCartById(@PathVariable Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                  required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<CartResponse>> cart = cartService.findCartById(id)
+                .map(response -> ResponseEntity.ok().eTag(ETags.of(response.version())).body(response));
+        if (ifNoneMatch == null) {
+            return cart;
+        }
+        return cartService.findCartVersion(id)
+                .map(ETags::of)
+                .flatMap(etag -> ETags.matches(ifNoneMatch, etag)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<CartResponse>build())
+                        : cart);
+    }
+
+    /**
+     * Lists every cart as one JSON array, written as the rows are read rather than once the
+     * whole table has been read.
+     */
+    @GetMapping(params = {"!after", "!size"})
+    public Flux<CartResponse> getAllCarts() {
+        return cartService.getAllCarts();
+    }
+
+    /**
+     * Lists a keyset page of carts, requested with {@code after} and/or {@code size}.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<CartResponse>>> getCartsPage(@RequestParam(required = false) Long after,
+                                                                 @RequestParam(required = false) Integer size,
+                                                                 ServerWebExchange exchange) {
+        int pageSize = KeysetPages.pageSize(size);
+        return cartService.getCartsPage(after == null ? 0L : after, pageSize)
+                .map(carts -> KeysetPages.page(carts, pageSize, CartResponse::id,
+                        UriComponentsBuilder.fromUri(exchange.getRequest().getURI())));
+    }
+
+    @GetMapping("/summary/totals")
+    public Mono<CartTotals> getCartTotals() {
+        return cartService.getCartTotals();
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CartResponse> streamAllCarts() {
+        return cartService.getAllCarts();
+    }
+
+    @DeleteMapping("/delete-cart/{id}")
+    public Mono<ResponseEntity<Void>> deleteCart(@PathVariable Long id) {
+        return cartService.deleteCart(id).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
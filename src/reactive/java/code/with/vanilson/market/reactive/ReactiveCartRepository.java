@@ -0,0 +1,56 @@
+package code.with.vanilson.market.reactive;
+
+import code.with.vanilson.market.cart.CartItemRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveCartRepository
+ * <p>
+ * The statements of {@code cart.CartRepository} in SQL. Carts are read as
+ * {@link CartItemRow}s, one per item ordered by cart, and grouped into carts as they stream.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public interface ReactiveCartRepository extends R2dbcRepository<CartRow, Long> {
+    String CART_ROWS = "select c.id as cart_id, c.name, c.item_count, c.version as cart_version, "
+            + "i.id as item_id, i.serial_number, i.version "
+            + "from tb_carts c left join tb_items i on i.cart_id = c.id ";
+
+    @Query(CART_ROWS + "order by c.id, i.id")
+    Flux<CartItemRow> findAllRows();
+
+    @Query(CART_ROWS + "where c.id in (select id from tb_carts where id > :afterId order by id limit :size) "
+            + "order by c.id, i.id")
+    Flux<CartItemRow> findRowsAfter(long afterId, int size);
+
+    @Query(CART_ROWS + "where c.id = :id order by i.id")
+    Flux<CartItemRow> findRowsById(Long id);
+
+    @Query("select version from tb_carts where id = :id")
+    Mono<Long> findVersionById(Long id);
+
+    @Modifying
+    @Query("update tb_carts set item_count = item_count + :delta, version = version + 1 where id = :id")
+    Mono<Integer> addToItemCount(Long id, int delta);
+
+    /**
+     * Bumps the versions of {@code fromCartId} and {@code toCartId} and moves an item from the
+     * counter of the first to that of the second, like {@code CartRepository.moveItemCount}.
+     */
+    @Modifying
+    @Query("update tb_carts set version = version + 1, item_count = item_count "
+            + "+ (case when id = :toCartId then 1 else 0 end) "
+            + "- (case when id = :fromCartId then 1 else 0 end) "
+            + "where id = :fromCartId or id = :toCartId")
+    Mono<Integer> moveItemCount(Long fromCartId, Long toCartId);
+
+    @Modifying
+    @Query("delete from tb_carts where id = :id")
+    Mono<Integer> deleteCart(Long id);
+}
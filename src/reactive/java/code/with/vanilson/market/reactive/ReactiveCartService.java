@@ -0,0 +1,127 @@
+package code.with.vanilson.market.reactive;
+
+import code.with.vanilson.market.cart.Cart;
+import code.with.vanilson.market.cart.CartItemRow;
+import code.with.vanilson.market.cart.CartResponse;
+import code.with.vanilson.market.cart.CartTotals;
+import code.with.vanilson.market.cart.Item;
+import code.with.vanilson.market.cart.ItemResponse;
+import code.with.vanilson.market.cart.ResourceNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReactiveCartService
+ * <p>
+ * {@code cart.CartService} for the reactive stack, without the caches: listings stream rows
+ * from the database and group them into carts as the subscriber asks for more, and a cart is
+ * created with all of its items in one multi-row insert.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Service
+@Profile(ReactiveMarketApplication.PROFILE)
+public class ReactiveCartService {
+    private static final int INSERT_CHUNK_SIZE = 500;
+
+    private final ReactiveCartRepository cartRepository;
+    private final R2dbcEntityTemplate template;
+    private final DatabaseClient databaseClient;
+    private final PooledIds cartIds;
+    private final PooledIds itemIds;
+
+    public ReactiveCartService(ReactiveCartRepository cartRepository, R2dbcEntityTemplate template,
+                               DatabaseClient databaseClient) {
+        this.cartRepository = cartRepository;
+        this.template = template;
+        this.databaseClient = databaseClient;
+        this.cartIds = new PooledIds(databaseClient, "tb_carts_seq");
+        this.itemIds = new PooledIds(databaseClient, "tb_items_seq");
+    }
+
+    public Flux<CartResponse> getAllCarts() {
+        return cartRepository.findAllRows()
+                .bufferUntilChanged(CartItemRow::cartId)
+                .map(rows -> CartResponse.fromRows(rows).get(0));
+    }
+
+    public Mono<List<CartResponse>> getCartsPage(long afterId, int size) {
+        return cartRepository.findRowsAfter(afterId, size).collectList().map(CartResponse::fromRows);
+    }
+
+    public Mono<CartResponse> findCartById(Long id) {
+        return cartRepository.findRowsById(id)
+                .collectList()
+                .filter(rows -> !rows.isEmpty())
+                .map(rows -> CartResponse.fromRows(rows).get(0))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Cart not found with id " + id)));
+    }
+
+    public Mono<Long> findCartVersion(Long id) {
+        return cartRepository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Cart not found with id " + id)));
+    }
+
+    public Mono<CartTotals> getCartTotals() {
+        return databaseClient.sql("select count(*), coalesce(sum(item_count), 0), coalesce(max(item_count), 0) "
+                        + "from tb_carts")
+                .map(row -> new CartTotals(row.get(0, Long.class), row.get(1, Long.class), row.get(2, Integer.class)))
+                .one();
+    }
+
+    /**
+     * Creates the cart and its items in one transaction, the items in multi-row inserts of up
+     * to {@value #INSERT_CHUNK_SIZE} rows.
+     */
+    @Transactional
+    public Mono<CartResponse> createCartWithItems(Cart cart) {
+        List<Item> items = cart.getItems();
+        return cartIds.next()
+                .zipWith(itemIds.next(items.size()).collectList())
+                .flatMap(ids -> {
+                    Long cartId = ids.getT1();
+                    List<ItemResponse> created = new ArrayList<>(items.size());
+                    for (int i = 0; i < items.size(); i++) {
+                        created.add(new ItemResponse(ids.getT2().get(i), items.get(i).getSerialNumber(), cartId, 0L));
+                    }
+                    return template.insert(new CartRow(cartId, cart.getName(), items.size(), 0))
+                            .thenMany(Flux.fromIterable(created).buffer(INSERT_CHUNK_SIZE))
+                            .concatMap(this::insertItems)
+                            .then(Mono.just(new CartResponse(cartId, cart.getName(), items.size(), 0, created)));
+                });
+    }
+
+    @Transactional
+    public Mono<Void> deleteCart(Long id) {
+        return cartRepository.deleteCart(id)
+                .filter(deleted -> deleted > 0)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Cart not found with id " + id)))
+                .then();
+    }
+
+    private Mono<Long> insertItems(List<ItemResponse> items) {
+        StringBuilder sql = new StringBuilder("insert into tb_items (id, serial_number, cart_id, version) values ");
+        for (int i = 0; i < items.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(:id").append(i).append(", :serial").append(i)
+                    .append(", :cart").append(i).append(", 0)");
+        }
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(sql.toString());
+        for (int i = 0; i < items.size(); i++) {
+            ItemResponse item = items.get(i);
+            insert = insert.bind("id" + i, item.id())
+                    .bind("serial" + i, item.serialNumber())
+                    .bind("cart" + i, item.cartId());
+        }
+        return insert.fetch().rowsUpdated();
+    }
+}
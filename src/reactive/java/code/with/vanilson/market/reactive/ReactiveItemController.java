@@ -0,0 +1,103 @@
+package code.with.vanilson.market.reactive;
+
+import code.with.vanilson.market.cart.ETags;
+import code.with.vanilson.market.cart.Item;
+import code.with.vanilson.market.cart.ItemResponse;
+import code.with.vanilson.market.cart.KeysetPages;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * ReactiveItemController
+ * <p>
+ * The item endpoints of {@code cart.ItemController} on WebFlux, apart from the serial number
+ * lookups and the bulk import.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@RestController
+@Profile(ReactiveMarketApplication.PROFILE)
+@RequestMapping("/api/items")
+public class ReactiveItemController {
+    private final ReactiveItemService itemService;
+
+    public ReactiveItemController(ReactiveItemService itemService) {
+        this.itemService = itemService;
+    }
+
+    /**
+     * Lists every item as one JSON array, written as the rows are read, like
+     * {@link ReactiveCartController#getAllCarts}.
+     */
+    @GetMapping(params = {"!after", "!size"})
+    public Flux<ItemResponse> getAllItems() {
+        return itemService.getAllItems();
+    }
+
+    /**
+     * Lists a keyset page of items, requested with {@code after} and/or {@code size}.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<ItemResponse>>> getItemsPage(@RequestParam(required = false) Long after,
+                                                                 @RequestParam(required = false) Integer size,
+                                                                 ServerWebExchange exchange) {
+        int pageSize = KeysetPages.pageSize(size);
+        return itemService.getItemsPage(after == null ? 0L : after, pageSize)
+                .map(items -> KeysetPages.page(items, pageSize, ItemResponse::id,
+                        UriComponentsBuilder.fromUri(exchange.getRequest().getURI())));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ItemResponse> streamAllItems() {
+        return itemService.getAllItems();
+    }
+
+    /**
+     * Returns the item with its version as a weak ETag, and 304 when {@code If-None-Match}
+     * still lists it, like {@link ReactiveCartController#getCartById}.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ItemResponse>> getItemById(@PathVariable Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                  required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<ItemResponse>> item = itemService.findItemById(id)
+                .map(response -> ResponseEntity.ok().eTag(ETags.of(response.version())).body(response));
+        if (ifNoneMatch == null) {
+            return item;
+        }
+        return itemService.findItemVersion(id)
+                .map(ETags::of)
+                .flatMap(etag -> ETags.matches(ifNoneMatch, etag)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<ItemResponse>build())
+                        : item);
+    }
+
+    @PostMapping("/create-item")
+    public Mono<ResponseEntity<ItemResponse>> createItem(@RequestBody @Valid Item item) {
+        return itemService.createItem(item)
+                .map(createdItem -> new ResponseEntity<>(createdItem, HttpStatus.CREATED));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ItemResponse> updateItem(@PathVariable Long id, @RequestBody @Valid Item item) {
+        return itemService.updateItem(id, item);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteItem(@PathVariable Long id) {
+        return itemService.deleteItem(id).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
@@ -0,0 +1,54 @@
+package code.with.vanilson.market.reactive;
+
+import code.with.vanilson.market.cart.ItemResponse;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReactiveItemRepository
+ * <p>
+ * The statements of {@code cart.ItemRepository} in SQL, reading items straight into
+ * {@link ItemResponse}s.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public interface ReactiveItemRepository extends R2dbcRepository<ItemRow, Long> {
+    String ITEM_RESPONSES = "select id, serial_number, cart_id, version from tb_items ";
+
+    @Query(ITEM_RESPONSES + "order by id")
+    Flux<ItemResponse> findAllResponses();
+
+    @Query(ITEM_RESPONSES + "where id > :afterId order by id limit :size")
+    Flux<ItemResponse> findResponsesAfter(long afterId, int size);
+
+    @Query(ITEM_RESPONSES + "where id = :id")
+    Mono<ItemResponse> findResponseById(Long id);
+
+    @Query("select version from tb_items where id = :id")
+    Mono<Long> findVersionById(Long id);
+
+    /**
+     * Locks the item row until the end of the transaction, like {@code ItemRepository.lockLookupById}.
+     */
+    @Query(ITEM_RESPONSES + "where id = :id for update")
+    Mono<ItemResponse> lockResponseById(Long id);
+
+    @Modifying
+    @Query("update tb_items set serial_number = :serialNumber, cart_id = :cartId, version = version + 1 "
+            + "where id = :id")
+    Mono<Integer> updateItem(Long id, String serialNumber, Long cartId);
+
+    @Modifying
+    @Query("update tb_items set serial_number = :serialNumber, cart_id = :cartId, version = version + 1 "
+            + "where id = :id and version = :version")
+    Mono<Integer> updateItemIfVersion(Long id, String serialNumber, Long cartId, Long version);
+
+    @Modifying
+    @Query("delete from tb_items where id = :id")
+    Mono<Integer> deleteItem(Long id);
+}
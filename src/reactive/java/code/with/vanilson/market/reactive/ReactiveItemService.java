@@ -0,0 +1,127 @@
+package code.with.vanilson.market.reactive;
+
+import code.with.vanilson.market.cart.Item;
+import code.with.vanilson.market.cart.ItemResponse;
+import code.with.vanilson.market.cart.ResourceConflictException;
+import code.with.vanilson.market.cart.ResourceNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+
+import static code.with.vanilson.market.cart.ItemService.CART_FOREIGN_KEY;
+import static code.with.vanilson.market.cart.ItemService.ITEM_NOT_FOUND_WITH_ID;
+
+/**
+ * ReactiveItemService
+ * <p>
+ * {@code cart.ItemService} for the reactive stack: every write keeps the cart counters and
+ * versions in step in the same statements as the servlet stack.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Service
+@Profile(ReactiveMarketApplication.PROFILE)
+public class ReactiveItemService {
+
+    private final ReactiveItemRepository itemRepository;
+    private final ReactiveCartRepository cartRepository;
+    private final R2dbcEntityTemplate template;
+    private final PooledIds itemIds;
+
+    public ReactiveItemService(ReactiveItemRepository itemRepository, ReactiveCartRepository cartRepository,
+                               R2dbcEntityTemplate template, DatabaseClient databaseClient) {
+        this.itemRepository = itemRepository;
+        this.cartRepository = cartRepository;
+        this.template = template;
+        this.itemIds = new PooledIds(databaseClient, "tb_items_seq");
+    }
+
+    public Flux<ItemResponse> getAllItems() {
+        return itemRepository.findAllResponses();
+    }
+
+    public Mono<List<ItemResponse>> getItemsPage(long afterId, int size) {
+        return itemRepository.findResponsesAfter(afterId, size).collectList();
+    }
+
+    public Mono<ItemResponse> findItemById(Long id) {
+        return itemRepository.findResponseById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(ITEM_NOT_FOUND_WITH_ID + id)));
+    }
+
+    public Mono<Long> findItemVersion(Long id) {
+        return itemRepository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(ITEM_NOT_FOUND_WITH_ID + id)));
+    }
+
+    /**
+     * Counts the item on its cart first, which also tells whether the cart exists.
+     */
+    @Transactional
+    public Mono<ItemResponse> createItem(Item item) {
+        Long cartId = item.getCart().getId();
+        return cartRepository.addToItemCount(cartId, 1)
+                .filter(updated -> updated > 0)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Cart not found with id " + cartId)))
+                .then(itemIds.next())
+                .flatMap(id -> template.insert(new ItemRow(id, item.getSerialNumber(), cartId, 0)))
+                .map(row -> new ItemResponse(row.id(), row.serialNumber(), row.cartId(), row.version()));
+    }
+
+    /**
+     * Locks the item first and moves it off the cart it is in once locked, like
+     * {@code cart.ItemService.updateItem}.
+     */
+    @Transactional
+    public Mono<ItemResponse> updateItem(Long id, Item updatedItem) {
+        Long cartId = updatedItem.getCart() == null ? null : updatedItem.getCart().getId();
+        Long version = updatedItem.getVersion();
+        Mono<Integer> update = version == null
+                ? itemRepository.updateItem(id, updatedItem.getSerialNumber(), cartId)
+                : itemRepository.updateItemIfVersion(id, updatedItem.getSerialNumber(), cartId, version);
+        return lockItem(id)
+                .flatMap(current -> cartRepository.moveItemCount(current.cartId(), cartId))
+                .then(update)
+                .onErrorMap(ReactiveItemService::isMissingCart,
+                        e -> new ResourceNotFoundException("Cart not found with id " + cartId))
+                .flatMap(updated -> updated > 0
+                        ? Mono.just(new ItemResponse(id, updatedItem.getSerialNumber(), cartId,
+                        version == null ? null : version + 1))
+                        : Mono.error(new ResourceConflictException("Item " + id
+                        + " was modified concurrently, expected version " + version)));
+    }
+
+    @Transactional
+    public Mono<Void> deleteItem(Long id) {
+        return lockItem(id)
+                .flatMap(current -> cartRepository.moveItemCount(current.cartId(), null))
+                .then(itemRepository.deleteItem(id))
+                .then();
+    }
+
+    /**
+     * R2DBC does not expose the constraint name, so it is looked up in the driver's message.
+     */
+    static boolean isMissingCart(Throwable e) {
+        if (!(e instanceof DataIntegrityViolationException violation)) {
+            return false;
+        }
+        String message = violation.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(CART_FOREIGN_KEY);
+    }
+
+    private Mono<ItemResponse> lockItem(Long id) {
+        return itemRepository.lockResponseById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(ITEM_NOT_FOUND_WITH_ID + id)));
+    }
+}
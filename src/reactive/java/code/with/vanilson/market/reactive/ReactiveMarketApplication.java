@@ -0,0 +1,45 @@
+package code.with.vanilson.market.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.jdbc.JdbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * ReactiveMarketApplication
+ * <p>
+ * The {@code /api/carts} and {@code /api/items} API on WebFlux and R2DBC, built from
+ * {@code src/reactive} by the {@code reactive} Maven profile only, so the servlet and JPA
+ * {@code MarketApplication} of the default build never has WebFlux or R2DBC on its classpath.
+ * It serves the same paths and JSON, reads and writes the same Flyway schema, and scans only
+ * this package; the {@value #PROFILE} Spring profile (application-reactive.yml) holds its R2DBC
+ * and Flyway connections and keeps its beans out of the servlet application.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+@Profile(ReactiveMarketApplication.PROFILE)
+@SpringBootApplication(exclude = {
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        JpaRepositoriesAutoConfiguration.class,
+        JdbcRepositoriesAutoConfiguration.class})
+public class ReactiveMarketApplication {
+    public static final String PROFILE = "reactive";
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveMarketApplication.class)
+                .profiles(PROFILE)
+                .web(WebApplicationType.REACTIVE)
+                .run(args);
+    }
+}
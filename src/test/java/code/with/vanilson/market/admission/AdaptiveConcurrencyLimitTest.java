@@ -0,0 +1,95 @@
+package code.with.vanilson.market.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Adaptive Concurrency Limit Test
+ * <p>
+ * Drives the limit with synthetic time: every window runs as many requests as the limit
+ * allows, all finishing at the end of the window with the given latency.
+ */
+@DisplayName("Adaptive Concurrency Limit Test")
+class AdaptiveConcurrencyLimitTest {
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private long now;
+
+    @DisplayName("Test tryAcquire - requests above the limit are refused until one is released")
+    @Test
+    void testTryAcquire_ShouldRefuse_WhenLimitIsReached() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, WINDOW, now);
+
+        // When / Then
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        limit.release(FAST, now);
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.inFlight()).isEqualTo(2);
+    }
+
+    @DisplayName("Test release - the limit grows while it is used and latency holds")
+    @Test
+    void testRelease_ShouldGrowLimit_WhenLimitIsUsedAndLatencyHolds() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, WINDOW, now);
+
+        // When
+        runWindows(limit, 10, FAST, Integer.MAX_VALUE);
+
+        // Then
+        assertThat(limit.limit()).isGreaterThan(10).isLessThanOrEqualTo(100);
+    }
+
+    @DisplayName("Test release - the limit stays put while requests do not use it")
+    @Test
+    void testRelease_ShouldKeepLimit_WhenLimitIsNotUsed() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, WINDOW, now);
+
+        // When
+        runWindows(limit, 10, FAST, 1);
+
+        // Then
+        assertThat(limit.limit()).isEqualTo(10);
+    }
+
+    @DisplayName("Test release - the limit shrinks when latency rises and recovers once it is the norm")
+    @Test
+    void testRelease_ShouldShrinkLimit_WhenLatencyRises() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 100, WINDOW, now);
+        runWindows(limit, 20, FAST, Integer.MAX_VALUE);
+        int before = limit.limit();
+
+        // When
+        runWindows(limit, 5, SLOW, Integer.MAX_VALUE);
+        int shrunk = limit.limit();
+        runWindows(limit, 200, SLOW, Integer.MAX_VALUE);
+
+        // Then
+        assertThat(shrunk).isLessThan(before);
+        assertThat(limit.limit()).isGreaterThan(shrunk);
+    }
+
+    private void runWindows(AdaptiveConcurrencyLimit limit, int windows, long latency, int maxRequests) {
+        for (int window = 0; window < windows; window++) {
+            int running = 0;
+            while (running < maxRequests && limit.tryAcquire()) {
+                running++;
+            }
+            now += WINDOW;
+            for (int i = 0; i < running; i++) {
+                limit.release(latency, now);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package code.with.vanilson.market.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admission Behind Proxy Test
+ * <p>
+ * Write requests without an API key reaching the server through a proxy on the loopback
+ * address, which Tomcat trusts to set {@code X-Forwarded-For}. Each client is allowed two
+ * writes at once and one every two seconds.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "market.admission.enabled=true",
+        "market.admission.rate=0.5",
+        "market.admission.burst=2"})
+@ActiveProfiles("test")
+@DisplayName("Admission Behind Proxy Test")
+class AdmissionBehindProxyTest {
+
+    @LocalServerPort
+    int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart tells clients behind the same proxy apart")
+    @Test
+    void testCreateCart_ShouldLimitEachForwardedClient_WhenClientsShareProxy() throws Exception {
+        // Given
+        createCart("203.0.113.10");
+        createCart("203.0.113.10");
+
+        // When / Then
+        assertThat(createCart("203.0.113.10")).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(createCart("203.0.113.11")).isEqualTo(HttpStatus.CREATED.value());
+    }
+
+    private int createCart(String clientAddress) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/carts/create-cart"))
+                        .header("Content-Type", "application/json")
+                        .header("X-Forwarded-For", clientAddress)
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"Behind proxy\"}"))
+                        .build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+}
@@ -0,0 +1,125 @@
+package code.with.vanilson.market.admission;
+
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admission Control Test
+ * <p>
+ * Write requests from a client allowed two writes at once and one every two seconds.
+ */
+@SpringBootTest(properties = {
+        "market.admission.enabled=true",
+        "market.admission.rate=0.5",
+        "market.admission.burst=2"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Admission Control Test")
+class AdmissionControlTest {
+    private static final String CART = "{\"name\": \"Admission\"}";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private String apiKey;
+
+    @BeforeEach
+    void setUp() {
+        apiKey = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart beyond the burst gets 429 with Retry-After")
+    @Test
+    void testCreateCart_ShouldReturnTooManyRequests_WhenBurstIsUsedUp() throws Exception {
+        // Given
+        double rateLimited = outcomeCount("rate_limited");
+        createCart(apiKey).andExpect(status().isCreated());
+        createCart(apiKey).andExpect(status().isCreated());
+
+        // When
+        MvcResult rejected = createCart(apiKey)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andReturn();
+
+        // Then
+        assertThat(Integer.parseInt(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER))).isBetween(1, 2);
+        assertThat(outcomeCount("rate_limited")).isEqualTo(rateLimited + 1);
+    }
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart from another client is still admitted")
+    @Test
+    void testCreateCart_ShouldAdmitOtherClient_WhenOneClientIsLimited() throws Exception {
+        // Given
+        createCart(apiKey);
+        createCart(apiKey);
+        createCart(apiKey).andExpect(status().isTooManyRequests());
+
+        // When / Then
+        createCart(UUID.randomUUID().toString()).andExpect(status().isCreated());
+    }
+
+    /**
+     * Test get cart by id - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} is never shed")
+    @Test
+    void testGetCartById_ShouldBeAdmitted_WhenClientIsLimited() throws Exception {
+        // Given
+        String created = createCart(apiKey).andReturn().getResponse().getContentAsString();
+        long id = ((Number) JsonPath.read(created, "$.id")).longValue();
+        createCart(apiKey);
+        createCart(apiKey).andExpect(status().isTooManyRequests());
+
+        // When / Then
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/carts/{id}", id).header("X-API-Key", apiKey))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private ResultActions createCart(String key) throws Exception {
+        return mockMvc.perform(post("/api/carts/create-cart")
+                .header("X-API-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(CART));
+    }
+
+    private double outcomeCount(String outcome) {
+        Counter counter = meterRegistry.find("market.admission.requests").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
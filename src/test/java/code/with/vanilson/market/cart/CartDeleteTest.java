@@ -0,0 +1,176 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.support.QueryCountConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cart Delete Test
+ * <p>
+ * Checks that carts are deleted with one statement each request, their items going through
+ * the database cascade instead of being loaded and deleted one by one.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Cart Delete Test")
+class CartDeleteTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    private String prefix;
+
+    @BeforeEach
+    void setUp() {
+        prefix = "Delete " + System.nanoTime() + " ";
+    }
+
+    /**
+     * Test delete cart - DELETE /api/carts/delete-cart/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete cart - DELETE /api/carts/delete-cart/{id} runs a single delete")
+    @Test
+    void testDeleteCart_ShouldRunOneDelete_WhenCartHasItems() throws Exception {
+        // Given
+        var cart = createCart(prefix + "full", 20);
+        QueryCountConfig.reset();
+
+        // When
+        mockMvc.perform(delete("/api/carts/delete-cart/{id}", cart.id()))
+                .andExpect(status().isNoContent());
+
+        // Then
+        assertThat(QueryCountConfig.count().getTotal()).isEqualTo(1);
+        assertThat(QueryCountConfig.count().getDelete()).isEqualTo(1);
+        assertThat(itemRepository.existsById(cart.items().get(0).id())).isFalse();
+        mockMvc.perform(get("/api/carts/{id}", cart.id()))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test delete cart - DELETE /api/carts/delete-cart/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete cart - DELETE /api/carts/delete-cart/{id} returns 404 for a missing cart")
+    @Test
+    void testDeleteCart_ShouldReturnNotFound_WhenCartDoesNotExist() throws Exception {
+        mockMvc.perform(delete("/api/carts/delete-cart/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test delete carts by id - DELETE /api/carts?ids=
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete carts - DELETE /api/carts?ids= deletes the listed carts in one statement")
+    @Test
+    void testDeleteCarts_ShouldRunOneDelete_WhenIdsAreGiven() throws Exception {
+        // Given
+        var carts = IntStream.range(0, 3).mapToObj(i -> createCart(prefix + i, 5)).toList();
+        var kept = createCart(prefix + "kept", 1);
+        QueryCountConfig.reset();
+
+        // When
+        mockMvc.perform(delete("/api/carts")
+                        .param("ids", String.valueOf(carts.get(0).id()), String.valueOf(carts.get(1).id()),
+                                String.valueOf(carts.get(2).id()), String.valueOf(Long.MAX_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(3));
+
+        // Then
+        assertThat(QueryCountConfig.count().getTotal()).isEqualTo(1);
+        assertThat(carts).allSatisfy(cart -> assertThat(itemRepository.existsById(cart.items().get(0).id())).isFalse());
+        assertThat(itemRepository.existsById(kept.items().get(0).id())).isTrue();
+    }
+
+    /**
+     * Test delete carts by filter - DELETE /api/carts?namePrefix=&maxItems=
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete carts - DELETE /api/carts?namePrefix=&maxItems= deletes the matching carts in one statement")
+    @Test
+    void testDeleteCarts_ShouldDeleteMatchingCarts_WhenFilterIsGiven() throws Exception {
+        // Given
+        createCart(prefix + "empty 1", 0);
+        createCart(prefix + "empty 2", 0);
+        var small = createCart(prefix + "small", 2);
+        var other = createCart("Other " + prefix, 0);
+        QueryCountConfig.reset();
+
+        // When
+        mockMvc.perform(delete("/api/carts")
+                        .param("namePrefix", prefix)
+                        .param("maxItems", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
+
+        // Then
+        assertThat(QueryCountConfig.count().getTotal()).isEqualTo(1);
+        mockMvc.perform(get("/api/carts/{id}", small.id()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/carts/{id}", other.id()))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Test delete carts without a filter - DELETE /api/carts
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete carts - DELETE /api/carts rejects a request without ids or filter")
+    @Test
+    void testDeleteCarts_ShouldReturnBadRequest_WhenNeitherIdsNorFilterAreGiven() throws Exception {
+        mockMvc.perform(delete("/api/carts"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/carts").param("ids", "1").param("maxItems", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test delete carts with a blank name prefix - DELETE /api/carts?namePrefix=
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete carts - DELETE /api/carts rejects a blank name prefix instead of deleting every cart")
+    @Test
+    void testDeleteCarts_ShouldReturnBadRequest_WhenNamePrefixIsBlank() throws Exception {
+        // Given
+        var cart = createCart(prefix + "kept", 1);
+
+        // When / Then
+        mockMvc.perform(delete("/api/carts").param("namePrefix", ""))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/carts").param("namePrefix", " ").param("maxItems", "5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/carts/{id}", cart.id()))
+                .andExpect(status().isOk());
+    }
+
+    private CartResponse createCart(String name, int itemCount) {
+        var cart = new Cart(name);
+        IntStream.range(0, itemCount).forEach(i -> cart.getItems().add(new Item("DEL-" + i, null)));
+        return cartService.createCartWithItems(cart);
+    }
+}
@@ -0,0 +1,114 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.support.QueryCountConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cart Query Count Test
+ * <p>
+ * Runs the cart endpoints against H2 with open-in-view disabled and checks that listing carts
+ * costs a fixed number of SQL statements however many carts there are.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Cart Query Count Test")
+class CartQueryCountTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    /**
+     * Test get all carts - GET /api/carts
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get all carts - GET /api/carts runs a single select")
+    @ParameterizedTest(name = "{0} carts")
+    @ValueSource(ints = {1, 10, 50})
+    void testGetAllCarts_ShouldRunOneSelect_WhenListingManyCarts(int cartCount) throws Exception {
+        // Given
+        IntStream.range(0, cartCount).forEach(i -> createCart("List " + cartCount + "-" + i, 3));
+        QueryCountConfig.reset();
+
+        mockMvc.perform(get("/api/carts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name == 'List " + cartCount + "-0')].items[*]", hasSize(3)));
+
+        assertThat(QueryCountConfig.count().getSelect()).isEqualTo(1);
+        assertThat(QueryCountConfig.count().getTotal()).isEqualTo(1);
+    }
+
+    /**
+     * Test get carts page - GET /api/carts?after=&size=
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get carts page - GET /api/carts?after=&size= runs two selects")
+    @ParameterizedTest(name = "page of {0}")
+    @ValueSource(ints = {1, 10, 50})
+    void testGetCartsPage_ShouldRunTwoSelects_WhenPageIsFull(int size) throws Exception {
+        // Given
+        var first = createCart("Page 0", 2);
+        IntStream.range(1, size).forEach(i -> createCart("Page " + i, 2));
+        QueryCountConfig.reset();
+
+        mockMvc.perform(get("/api/carts")
+                        .param("after", String.valueOf(first.id() - 1))
+                        .param("size", String.valueOf(size)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(size))
+                .andExpect(jsonPath("$[0].items.length()").value(2));
+
+        assertThat(QueryCountConfig.count().getSelect()).isEqualTo(2);
+    }
+
+    /**
+     * Test get cart by id - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} loads the items without open-in-view")
+    @Test
+    void testGetCartById_ShouldReturnItemsInOneSelect_WhenCartExists() throws Exception {
+        // Given
+        var cart = createCart("Single", 5);
+        cacheManager.getCache(CacheConfig.CARTS).clear();
+        QueryCountConfig.reset();
+
+        mockMvc.perform(get("/api/carts/{id}", cart.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Single"))
+                .andExpect(jsonPath("$.items.length()").value(5));
+
+        assertThat(QueryCountConfig.count().getSelect()).isEqualTo(1);
+    }
+
+    private CartResponse createCart(String name, int itemCount) {
+        var cart = new Cart(name);
+        IntStream.range(0, itemCount).forEach(i -> cart.getItems().add(new Item("SN-" + i, null)));
+        return cartService.createCartWithItems(cart);
+    }
+}
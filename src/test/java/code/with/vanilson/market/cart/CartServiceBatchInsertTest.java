@@ -0,0 +1,84 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.changes.CartChangeOutbox;
+import code.with.vanilson.market.support.QueryCountConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cart Service Batch Insert Test
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CartService.class, SerialNumberIndex.class, CartChangeOutbox.class, QueryCountConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // let the service commit its own transaction
+@DisplayName("Cart Service Batch Insert Test")
+class CartServiceBatchInsertTest {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @BeforeEach
+    void setUp() {
+        QueryCountConfig.reset();
+    }
+
+    @DisplayName("Test create cart with items - inserts are sent in JDBC batches")
+    @ParameterizedTest(name = "{0} items")
+    @ValueSource(ints = {1, 10, 50, 200})
+    void testCreateCartWithItems_ShouldBatchInserts_WhenCartHasManyItems(int itemCount) {
+        // Given
+        var cart = new Cart("Cart " + itemCount);
+        IntStream.range(0, itemCount)
+                .forEach(i -> cart.getItems().add(new Item("SN" + itemCount + "-" + i, null)));
+
+        // When
+        var result = cartService.createCartWithItems(cart);
+
+        // Then
+        var count = QueryCountConfig.count();
+        var itemBatches = (itemCount + BATCH_SIZE - 1) / BATCH_SIZE;
+        assertThat(result.id()).isNotNull();
+        assertThat(result.items()).allSatisfy(item -> assertThat(item.id()).isNotNull());
+        assertThat(count.getInsert()).as("one cart insert plus one batch per %d items", BATCH_SIZE)
+                .isEqualTo(1 + itemBatches);
+        assertThat(count.getUpdate()).isZero();
+        assertThat(itemRepository.count()).isGreaterThanOrEqualTo(itemCount);
+    }
+
+    @DisplayName("Test create cart with items - client supplied ids are ignored")
+    @ParameterizedTest(name = "id {0}")
+    @ValueSource(longs = {0L, 999_999L})
+    void testCreateCartWithItems_ShouldGenerateIds_WhenPayloadContainsIds(long clientId) {
+        // Given
+        var cart = new Cart("Cart with ids");
+        cart.setId(clientId);
+        cart.getItems().add(new Item(clientId, "SN-ID", null));
+
+        // When
+        var result = cartService.createCartWithItems(cart);
+
+        // Then
+        assertThat(result.id()).isNotEqualTo(clientId);
+        assertThat(result.items().get(0).id()).isNotEqualTo(clientId);
+    }
+}
@@ -0,0 +1,208 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.support.QueryCountConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cart Summary Test
+ * <p>
+ * Checks that the per-cart item counters follow every item write and that summaries are
+ * served from them alone.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Cart Summary Test")
+class CartSummaryTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    ItemImportService itemImportService;
+
+    @Autowired
+    CartRepository cartRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private CartResponse cart;
+    private CartResponse otherCart;
+
+    @BeforeEach
+    void setUp() {
+        var summary = new Cart("Summary");
+        summary.getItems().add(new Item("SUM-1", null));
+        summary.getItems().add(new Item("SUM-2", null));
+        cart = cartService.createCartWithItems(summary);
+        otherCart = cartService.createCartWithItems(new Cart("Summary other"));
+    }
+
+    @DisplayName("Test item counter - follows creates, moves, deletes and imports")
+    @Test
+    void testItemCount_ShouldFollowItemWrites_WhenItemsChange() throws Exception {
+        // Given
+        assertThat(itemCount(cart)).isEqualTo(2);
+
+        // When / Then
+        ItemResponse created = itemService.createItem(new Item("SUM-3", new Cart(cart.id(), null, null)));
+        assertThat(itemCount(cart)).isEqualTo(3);
+
+        itemService.updateItem(created.id(), new Item("SUM-3", new Cart(otherCart.id(), null, null)));
+        assertThat(itemCount(cart)).isEqualTo(2);
+        assertThat(itemCount(otherCart)).isEqualTo(1);
+
+        itemService.updateItem(created.id(), new Item("SUM-3b", new Cart(otherCart.id(), null, null)));
+        assertThat(itemCount(otherCart)).isEqualTo(1);
+
+        itemService.deleteItem(cart.items().get(0).id());
+        assertThat(itemCount(cart)).isEqualTo(1);
+
+        String rows = "[{\"serialNumber\": \"SUM-4\", \"cart\": {\"id\": " + otherCart.id() + "}},"
+                + "{\"serialNumber\": \"SUM-5\", \"cart\": {\"id\": " + otherCart.id() + "}}]";
+        itemImportService.importItems(new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8)));
+        assertThat(itemCount(otherCart)).isEqualTo(3);
+    }
+
+    @DisplayName("Test item counter - a failed update leaves the counters alone")
+    @Test
+    void testItemCount_ShouldNotChange_WhenUpdateFails() {
+        // Given
+        Long itemId = cart.items().get(0).id();
+
+        // When
+        Item stale = new Item("SUM-1", new Cart(otherCart.id(), null, null));
+        stale.setVersion(42L);
+
+        // Then
+        assertThatThrownBy(() -> itemService.updateItem(itemId, stale))
+                .isInstanceOf(ResourceConflictException.class);
+        assertThat(itemCount(cart)).isEqualTo(2);
+        assertThat(itemCount(otherCart)).isZero();
+    }
+
+    @DisplayName("Test item counter - concurrent moves and a delete of one item count it off its cart once")
+    @Test
+    void testItemCount_ShouldMatchItems_WhenItemIsMovedAndDeletedConcurrently() throws Exception {
+        // Given
+        CartResponse thirdCart = cartService.createCartWithItems(new Cart("Summary third"));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int round = 0; round < 20; round++) {
+                Long itemId = itemService.createItem(new Item("SUM-C" + round, new Cart(cart.id(), null, null))).id();
+                CyclicBarrier start = new CyclicBarrier(3);
+
+                // When
+                List<Future<Object>> writes = executor.invokeAll(List.of(
+                        afterBarrier(start, () -> itemService.updateItem(itemId,
+                                new Item("SUM-C", new Cart(otherCart.id(), null, null)))),
+                        afterBarrier(start, () -> itemService.updateItem(itemId,
+                                new Item("SUM-C", new Cart(thirdCart.id(), null, null)))),
+                        afterBarrier(start, () -> itemService.deleteItem(itemId))), 30, TimeUnit.SECONDS);
+                for (Future<Object> write : writes) {
+                    write.get();
+                }
+
+                // Then
+                for (CartResponse each : List.of(cart, otherCart, thirdCart)) {
+                    assertThat(itemCount(each)).as("item_count of cart %d in round %d", each.id(), round)
+                            .isEqualTo(jdbcTemplate.queryForObject("select count(*) from tb_items where cart_id = ?",
+                                    Integer.class, each.id()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test get cart summaries - GET /api/carts/summary
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart summaries - GET /api/carts/summary is one query without items")
+    @Test
+    void testGetCartSummaries_ShouldReturnItemCounts_WhenPaged() throws Exception {
+        // Given
+        QueryCountConfig.reset();
+
+        // When / Then
+        mockMvc.perform(get("/api/carts/summary").param("after", String.valueOf(cart.id() - 1))
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(cart.id()))
+                .andExpect(jsonPath("$[0].itemCount").value(2))
+                .andExpect(jsonPath("$[0].items").doesNotExist());
+
+        assertThat(QueryCountConfig.count().getTotal()).isEqualTo(1);
+    }
+
+    /**
+     * Test get cart totals - GET /api/carts/summary/totals
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart totals - GET /api/carts/summary/totals")
+    @Test
+    void testGetCartTotals_ShouldAggregateCounters_WhenCartsExist() throws Exception {
+        // Given
+        CartTotals totals = cartRepository.findTotals();
+
+        // When / Then
+        assertThat(totals.items()).isGreaterThanOrEqualTo(2);
+        mockMvc.perform(get("/api/carts/summary/totals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.carts").value(totals.carts()))
+                .andExpect(jsonPath("$.maxItemsPerCart").isNumber())
+                .andExpect(jsonPath("$.averageItemsPerCart").isNumber());
+    }
+
+    private static Callable<Object> afterBarrier(CyclicBarrier start, Runnable write) {
+        return () -> {
+            start.await();
+            try {
+                write.run();
+            } catch (ResourceNotFoundException e) {
+                // The delete went first
+            }
+            return null;
+        };
+    }
+
+    private int itemCount(CartResponse cart) {
+        return cartRepository.findSummariesAfter(cart.id() - 1, Limit.of(1))
+                .get(0).itemCount();
+    }
+}
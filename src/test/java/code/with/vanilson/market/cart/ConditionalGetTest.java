@@ -0,0 +1,179 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.support.QueryCountConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Conditional Get Test
+ * <p>
+ * Checks that the cart and item ETags follow every item write, and that a matching
+ * {@code If-None-Match} is answered with 304 from a single version select.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Conditional Get Test")
+class ConditionalGetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private Long cartId;
+    private Long otherCartId;
+    private Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        var cart = new Cart("Conditional");
+        cart.getItems().add(new Item("ETAG-1", null));
+        var created = cartService.createCartWithItems(cart);
+        cartId = created.id();
+        itemId = created.items().get(0).id();
+        otherCartId = cartService.createCartWithItems(new Cart("Conditional other")).id();
+    }
+
+    /**
+     * Test get cart by id with If-None-Match - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} answers 304 with one version select")
+    @Test
+    void testGetCartById_ShouldReturnNotModified_WhenETagStillMatches() throws Exception {
+        // Given
+        mockMvc.perform(get("/api/carts/{id}", cartId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"0\""))
+                .andExpect(jsonPath("$.version").value(0));
+        QueryCountConfig.reset();
+
+        // When / Then
+        mockMvc.perform(get("/api/carts/{id}", cartId).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"0\""))
+                .andExpect(content().string(""));
+        assertThat(QueryCountConfig.count().getSelect()).isEqualTo(1);
+        assertThat(QueryCountConfig.count().getTotal()).isEqualTo(1);
+    }
+
+    /**
+     * Test get cart by id read during an update - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} is not left with the cart read while an update was committing")
+    @Test
+    void testGetCartById_ShouldServeCommittedCart_WhenReadWhileUpdateIsUncommitted() throws Exception {
+        // Given: the item update has run but not committed when another request reads the cart
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            itemService.updateItem(itemId, new Item("ETAG-2", new Cart(cartId, null, null)));
+            CompletableFuture.runAsync(() -> cartService.findCartById(cartId)).join();
+        });
+
+        // When / Then
+        mockMvc.perform(get("/api/carts/{id}", cartId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"1\""))
+                .andExpect(jsonPath("$.items[0].serialNumber").value("ETAG-2"));
+        mockMvc.perform(get("/api/carts/{id}", cartId).header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified());
+    }
+
+    /**
+     * Test get cart by id after item writes - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} changes its ETag on every item write")
+    @Test
+    void testGetCartById_ShouldReturnNewETag_WhenItemsChange() throws Exception {
+        // Given
+        String create = "{\"serialNumber\": \"ETAG-2\", \"cart\": {\"id\": " + cartId + "}}";
+        String rename = "{\"serialNumber\": \"ETAG-1b\", \"cart\": {\"id\": " + cartId + "}}";
+        String move = "{\"serialNumber\": \"ETAG-1b\", \"cart\": {\"id\": " + otherCartId + "}}";
+
+        // When / Then
+        mockMvc.perform(post("/api/items/create-item").contentType(MediaType.APPLICATION_JSON).content(create))
+                .andExpect(status().isCreated());
+        expectCartETag(cartId, "\"0\"", "\"1\"");
+
+        mockMvc.perform(put("/api/items/{id}", itemId).contentType(MediaType.APPLICATION_JSON).content(rename))
+                .andExpect(status().isOk());
+        expectCartETag(cartId, "\"1\"", "\"2\"");
+
+        mockMvc.perform(put("/api/items/{id}", itemId).contentType(MediaType.APPLICATION_JSON).content(move))
+                .andExpect(status().isOk());
+        expectCartETag(cartId, "\"2\"", "\"3\"");
+        expectCartETag(otherCartId, "\"0\"", "\"1\"");
+
+        mockMvc.perform(delete("/api/items/{id}", itemId))
+                .andExpect(status().isNoContent());
+        expectCartETag(otherCartId, "\"1\"", "\"2\"");
+    }
+
+    /**
+     * Test get item by id with If-None-Match - GET /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get item by id - GET /api/items/{id} answers 304 until the item changes")
+    @Test
+    void testGetItemById_ShouldReturnNotModified_UntilItemChanges() throws Exception {
+        // Given
+        String rename = "{\"serialNumber\": \"ETAG-1c\", \"cart\": {\"id\": " + cartId + "}}";
+        mockMvc.perform(get("/api/items/{id}", itemId).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified());
+
+        // When
+        mockMvc.perform(put("/api/items/{id}", itemId).contentType(MediaType.APPLICATION_JSON).content(rename))
+                .andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/items/{id}", itemId).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"1\""))
+                .andExpect(jsonPath("$.serialNumber").value("ETAG-1c"));
+    }
+
+    /**
+     * Test get cart by id with If-None-Match - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} returns 404 for a missing cart")
+    @Test
+    void testGetCartById_ShouldReturnNotFound_WhenCartDoesNotExist() throws Exception {
+        mockMvc.perform(get("/api/carts/{id}", Long.MAX_VALUE).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    private void expectCartETag(Long id, String stale, String current) throws Exception {
+        mockMvc.perform(get("/api/carts/{id}", id).header("If-None-Match", stale))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/" + current));
+        mockMvc.perform(get("/api/carts/{id}", id).header("If-None-Match", current))
+                .andExpect(status().isNotModified());
+    }
+}
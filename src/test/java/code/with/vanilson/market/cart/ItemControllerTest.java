@@ -12,13 +12,15 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.temporal.ValueRange;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static java.util.Optional.empty;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
  * Item Controller Test
@@ -34,13 +36,15 @@ class ItemControllerTest {
     @MockBean
     ItemService itemService;
 
-    private List<Item> items;
+    @MockBean
+    ItemImportService itemImportService;
+
+    private List<ItemResponse> items;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        Cart cart = new Cart("Cart 1");
-        items = List.of(new Item("Item 1", cart), new Item("Item 2", cart));
+        items = List.of(new ItemResponse(null, "Item 1", null, 0L), new ItemResponse(null, "Item 2", null, 0L));
     }
 
     /**
@@ -61,6 +65,69 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[1].serialNumber").value("Item 2"));
     }
 
+    /**
+     * Test get items page - GET /api/items?after=&size=
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get items page - GET /api/items?after=&size=")
+    @Test
+    void testGetItemsPage_ShouldReturnNextLink_WhenPageIsFull() throws Exception {
+        // Given
+        var first = new ItemResponse(11L, "Item 1", null, null);
+        var second = new ItemResponse(12L, "Item 2", null, null);
+        when(itemService.getItemsPage(10L, 2)).thenReturn(List.of(first, second));
+
+        mockMvc.perform(get("/api/items")
+                        .param("after", "10")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("Link", "<http://localhost/api/items?after=12&size=2>; rel=\"next\""));
+    }
+
+    /**
+     * Test get items page - GET /api/items?after=&size=
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get items page - GET /api/items?after=&size=")
+    @Test
+    void testGetItemsPage_ShouldNotReturnNextLink_WhenLastPage() throws Exception {
+        // Given
+        when(itemService.getItemsPage(0L, 50)).thenReturn(items);
+
+        mockMvc.perform(get("/api/items")
+                        .param("after", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    /**
+     * Test stream all items - GET /api/items/stream
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test stream all items - GET /api/items/stream")
+    @Test
+    void testStreamAllItems_ShouldWriteOneJsonObjectPerLine_WhenItemsExists() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<ItemResponse> action = invocation.getArgument(0);
+            items.forEach(action);
+            return null;
+        }).when(itemService).streamAllItems(any());
+
+        var result = mockMvc.perform(get("/api/items/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":null,\"serialNumber\":\"Item 1\",\"cartId\":null,\"version\":0}\n"
+                                + "{\"id\":null,\"serialNumber\":\"Item 2\",\"cartId\":null,\"version\":0}\n"));
+    }
+
     /**
      * Test get item by id - GET /api/items/{id}
      * @throws Exception if an error occurs during the request
@@ -75,7 +142,45 @@ class ItemControllerTest {
         mockMvc.perform(get("/api/items/{id}", item)
                         .contentType("application/json"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.serialNumber").value("Item 1"));
+                .andExpect(jsonPath("$.serialNumber").value("Item 1"))
+                .andExpect(header().string("ETag", "W/\"0\""));
+    }
+
+    /**
+     * Test get item by id with If-None-Match - GET /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get item by id - GET /api/items/{id} answers 304 from the version alone")
+    @Test
+    void testGetItemById_ShouldReturnNotModifiedWithStatusCode304_WhenETagStillMatches() throws Exception {
+        // Given
+        when(itemService.findItemVersion(1L)).thenReturn(3L);
+
+        mockMvc.perform(get("/api/items/{id}", 1L)
+                        .header("If-None-Match", "\"2\", W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"3\""))
+                .andExpect(content().string(""));
+
+        verify(itemService, never()).findItemById(anyLong());
+    }
+
+    /**
+     * Test get item by id with a stale If-None-Match - GET /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get item by id - GET /api/items/{id} returns the item when the ETag is stale")
+    @Test
+    void testGetItemById_ShouldReturnSuccessWithStatusCode200_WhenETagIsStale() throws Exception {
+        // Given
+        when(itemService.findItemVersion(1L)).thenReturn(4L);
+        when(itemService.findItemById(1L)).thenReturn(Optional.of(new ItemResponse(1L, "Item 1", null, 4L)));
+
+        mockMvc.perform(get("/api/items/{id}", 1L)
+                        .header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
     }
 
     /**
@@ -87,9 +192,9 @@ class ItemControllerTest {
     void testGetItemById_ShouldReturnNotFoundWithStatusCode404_WhenProvidedItemIdDoesNotExists() throws Exception {
         // Given
         var item = items.get(0);
-        when(itemService.findItemById(item.getId())).thenReturn(empty());
+        when(itemService.findItemById(item.id())).thenReturn(empty());
 
-        mockMvc.perform(get("/api/items/{id}", item.getId())
+        mockMvc.perform(get("/api/items/{id}", item.id())
                         .contentType("application/json"))
                 .andExpect(status().isNotFound());
     }
@@ -102,7 +207,7 @@ class ItemControllerTest {
     @Test
     void testCreateItem_ShouldReturnSuccessWithStatusCode201_WhenItemIsCreated() throws Exception {
         // Given
-        var newItem = new Item(1L, "Item 1", new Cart("Cart 1"));
+        var newItem = new ItemResponse(1L, "Item 1", 1L, 0L);
         when(itemService.createItem(any(Item.class))).thenReturn(newItem);
 
         mockMvc.perform(post("/api/items/create-item")
@@ -138,9 +243,9 @@ class ItemControllerTest {
     void testUpdateItem_ShouldReturnSuccessWithStatusCode200_WhenItemIsUpdated() throws Exception {
         // Given
         var _id = 1L;
-        var item = new Item(_id, "Item 1", new Cart("Cart 1"));
+        var item = new ItemResponse(_id, "Item 1", 1L, 0L);
         when(itemService.findItemById(_id)).thenReturn(Optional.of(item));
-        when(itemService.updateItem(_id, items.get(0))).thenReturn(item);
+        when(itemService.updateItem(_id, new Item("Item 1", null))).thenReturn(item);
 
         mockMvc.perform(get("/api/items/{id}", _id)
                         .contentType("application/json"))
@@ -157,9 +262,9 @@ class ItemControllerTest {
     void testUpdateItem_ShouldReturnNotFoundWithStatusCode404_WhenProvidedItemIdDoesNotExists() throws Exception {
         // Given
         var item = items.get(0);
-        when(itemService.findItemById(item.getId())).thenReturn(empty());
+        when(itemService.findItemById(item.id())).thenReturn(empty());
 
-        mockMvc.perform(get("/api/items/{id}", item.getId())
+        mockMvc.perform(get("/api/items/{id}", item.id())
                         .contentType("application/json"))
                 .andExpect(status().isNotFound());
     }
@@ -189,10 +294,106 @@ class ItemControllerTest {
     void testDeleteItem_ShouldReturnNotFoundWithStatusCode404_WhenProvidedItemIdDoesNotExists() throws Exception {
         // Given
         var item = items.get(0);
-        when(itemService.findItemById(item.getId())).thenReturn(empty());
+        when(itemService.findItemById(item.id())).thenReturn(empty());
 
-        mockMvc.perform(get("/api/items/{id}", item.getId())
+        mockMvc.perform(get("/api/items/{id}", item.id())
                         .contentType("application/json"))
                 .andExpect(status().isNotFound());
     }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} without a prior lookup")
+    @Test
+    void testUpdateItem_ShouldUpdateWithoutLookup_WhenItemIsUpdated() throws Exception {
+        // Given
+        var updated = new ItemResponse(1L, "Item 9", null, 3L);
+        when(itemService.updateItem(eq(1L), any(Item.class))).thenReturn(updated);
+
+        mockMvc.perform(put("/api/items/{id}", 1L)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"Item 9\", \"version\": 2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.serialNumber").value("Item 9"))
+                .andExpect(jsonPath("$.version").value(3));
+
+        verify(itemService, never()).findItemById(anyLong());
+    }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} with a blank serial number")
+    @Test
+    void testUpdateItem_ShouldReturnBadRequestWithStatusCode400_WhenSerialNumberIsBlank() throws Exception {
+        mockMvc.perform(put("/api/items/{id}", 1L)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \" \", \"cart\": {\"id\": 1}}"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).updateItem(anyLong(), any(Item.class));
+    }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} with a serial number over 20 characters")
+    @Test
+    void testUpdateItem_ShouldReturnBadRequestWithStatusCode400_WhenSerialNumberIsTooLong() throws Exception {
+        mockMvc.perform(put("/api/items/{id}", 1L)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"" + "S".repeat(21) + "\", \"cart\": {\"id\": 1}}"))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).updateItem(anyLong(), any(Item.class));
+    }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} with a stale version")
+    @Test
+    void testUpdateItem_ShouldReturnConflictWithStatusCode409_WhenVersionIsStale() throws Exception {
+        // Given
+        when(itemService.updateItem(eq(1L), any(Item.class)))
+                .thenThrow(new ResourceConflictException("Item 1 was modified concurrently, expected version 2"));
+
+        mockMvc.perform(put("/api/items/{id}", 1L)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"Item 9\", \"version\": 2}"))
+                .andExpect(status().isConflict());
+    }
+
+    /**
+     * Test delete item - DELETE /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete item - DELETE /api/items/{id} without a prior lookup")
+    @Test
+    void testDeleteItem_ShouldReturnNoContentWithStatusCode204_WhenItemIsDeleted() throws Exception {
+        mockMvc.perform(delete("/api/items/{id}", 1L))
+                .andExpect(status().isNoContent());
+
+        verify(itemService).deleteItem(1L);
+        verify(itemService, never()).findItemById(anyLong());
+    }
+
+    /**
+     * Test delete item - DELETE /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete item - DELETE /api/items/{id} for a missing item")
+    @Test
+    void testDeleteItem_ShouldReturnNotFoundWithStatusCode404_WhenItemIsMissing() throws Exception {
+        // Given
+        doThrow(new ResourceNotFoundException("Item not found with id 1")).when(itemService).deleteItem(1L);
+
+        mockMvc.perform(delete("/api/items/{id}", 1L))
+                .andExpect(status().isNotFound());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.support.QueryCountConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Item Import Test
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Item Import Test")
+class ItemImportTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    private Long cartId;
+
+    @BeforeEach
+    void setUp() {
+        cartId = cartService.createCartWithItems(new Cart("Import")).id();
+    }
+
+    /**
+     * Test bulk import - POST /api/items/bulk
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test bulk import - POST /api/items/bulk with a JSON array")
+    @Test
+    void testImportItems_ShouldCreateEveryRowInBatches_WhenBodyIsJsonArray() throws Exception {
+        // Given
+        var rowCount = 120;
+        var body = IntStream.range(0, rowCount)
+                .mapToObj(i -> row("ARR-" + i, cartId))
+                .collect(Collectors.joining(",", "[", "]"));
+        var before = itemRepository.count();
+        QueryCountConfig.reset();
+
+        mockMvc.perform(post("/api/items/bulk")
+                        .contentType("application/json")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(rowCount))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.results[119].index").value(119))
+                .andExpect(jsonPath("$.results[119].id").isNumber());
+
+        assertThat(itemRepository.count()).isEqualTo(before + rowCount);
+        assertThat(QueryCountConfig.count().getInsert()).as("one batch per 50 rows").isEqualTo(3);
+    }
+
+    /**
+     * Test bulk import - POST /api/items/bulk
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test bulk import - POST /api/items/bulk with NDJSON reports failed rows")
+    @Test
+    void testImportItems_ShouldReportFailedRows_WhenRowsAreInvalid() throws Exception {
+        // Given
+        var body = String.join("\n",
+                row("ND-1", cartId),
+                row("", cartId),
+                row("ND-3", Long.MAX_VALUE),
+                "{\"serialNumber\": \"ND-4\", \"cart\": {\"id\": \"not a number\"}}",
+                row("ND-5", cartId));
+
+        mockMvc.perform(post("/api/items/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[1].error").value("Serial number is mandatory"))
+                .andExpect(jsonPath("$.results[2].error").value("Cart not found with id " + Long.MAX_VALUE))
+                .andExpect(jsonPath("$.results[3].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[4].status").value("CREATED"));
+    }
+
+    private static String row(String serialNumber, Long cartId) {
+        return "{\"serialNumber\": \"" + serialNumber + "\", \"cart\": {\"id\": " + cartId + "}}";
+    }
+}
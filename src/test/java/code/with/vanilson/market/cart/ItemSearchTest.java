@@ -0,0 +1,89 @@
+package code.with.vanilson.market.cart;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Item Search Test
+ * <p>
+ * Serial number lookups and prefix searches through the database index.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Item Search Test")
+class ItemSearchTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    private String prefix;
+    private Long cartId;
+
+    @BeforeEach
+    void setUp() {
+        // The database is shared between tests, keep the serial numbers of each run apart
+        prefix = "S" + System.nanoTime() % 1_000_000_000L;
+        var cart = new Cart("Search");
+        cart.getItems().add(new Item(prefix + "_B", null));
+        cart.getItems().add(new Item(prefix + "_A", null));
+        cart.getItems().add(new Item(prefix + "XA", null));
+        cartId = cartService.createCartWithItems(cart).id();
+    }
+
+    /**
+     * Test get items by serial number - GET /api/items/serial/{serialNumber}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get items by serial number - GET /api/items/serial/{serialNumber}")
+    @Test
+    void testGetItemsBySerialNumber_ShouldReturnItems_WhenSerialNumberExists() throws Exception {
+        mockMvc.perform(get("/api/items/serial/{serialNumber}", prefix + "_A"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].serialNumber").value(prefix + "_A"))
+                .andExpect(jsonPath("$[0].cartId").value(cartId));
+    }
+
+    /**
+     * Test get items by serial number - GET /api/items/serial/{serialNumber}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get items by serial number - GET /api/items/serial/{serialNumber} not found")
+    @Test
+    void testGetItemsBySerialNumber_ShouldReturnNotFound_WhenSerialNumberIsUnknown() throws Exception {
+        mockMvc.perform(get("/api/items/serial/{serialNumber}", prefix + "-none"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Test search items - GET /api/items/search
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test search items - GET /api/items/search treats wildcards literally")
+    @Test
+    void testSearchItems_ShouldReturnPrefixMatchesInOrder_WhenPrefixHasWildcards() throws Exception {
+        mockMvc.perform(get("/api/items/search").param("prefix", prefix + "_"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].serialNumber", contains(prefix + "_A", prefix + "_B")));
+
+        mockMvc.perform(get("/api/items/search").param("prefix", prefix).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+}
@@ -1,10 +1,15 @@
 package code.with.vanilson.market.cart;
 
+import code.with.vanilson.market.changes.CartChangeOutbox;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.Optional.of;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -16,15 +21,19 @@ class ItemServiceTest {
 
     private final ItemRepository itemRepository = mock(ItemRepository.class);
     private final CartRepository cartRepository = mock(CartRepository.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
     private ItemService itemService;
     private Cart cart;
     private List<Item> items;
+    private List<ItemResponse> responses;
 
     @BeforeEach
     void setUp() {
         cart = new Cart("Cart 1");
         items = List.of(new Item("Item 1", cart), new Item("Item 2", cart));
-        itemService = new ItemService(itemRepository, cartRepository);
+        responses = List.of(new ItemResponse(1L, "Item 1", 1L, 0L), new ItemResponse(2L, "Item 2", 1L, 0L));
+        itemService = new ItemService(itemRepository, cartRepository, entityManager, new SerialNumberIndex(false, false),
+                new CartChangeOutbox(null, false));
 
     }
 
@@ -34,45 +43,76 @@ class ItemServiceTest {
     void testGetAllItems_ShouldReturnAllItems_WhenItemsExists() {
         // Given
 
-        when(itemRepository.findAll()).thenReturn(items);
+        when(itemRepository.findAllResponses()).thenReturn(responses);
 
         // When
         var result = itemService.getAllItems();
 
         // Then
         assertThat(result).isNotNull();
-        assertThat(result).isSameAs(items);
-        assertEquals(result, items, "Items should be equal");
-        assertEquals(result.size(), items.size(), "Items size should be equal");
-        assertEquals(result.get(0).getCart(), items.get(0).getCart(), "Item names should be equal");
+        assertThat(result).isSameAs(responses);
+        assertEquals(result, responses, "Items should be equal");
+        assertEquals(result.size(), responses.size(), "Items size should be equal");
+        assertEquals(result.get(0).cartId(), responses.get(0).cartId(), "Item carts should be equal");
 
-        verify(itemRepository, times(1)).findAll();
+        verify(itemRepository, times(1)).findAllResponses();
+        verify(itemRepository, never()).findAll();
 
     }
 
+    @DisplayName("Test get items page")
+    @Test
+    void testGetItemsPage_ShouldReturnItemsAfterCursor_WhenItemsExists() {
+        // Given
+        when(itemRepository.findResponsesAfter(10L, Limit.of(2))).thenReturn(responses);
+
+        // When
+        var result = itemService.getItemsPage(10L, 2);
+
+        // Then
+        assertThat(result).isSameAs(responses);
+        verify(itemRepository, times(1)).findResponsesAfter(10L, Limit.of(2));
+        verify(itemRepository, never()).findAllResponses();
+    }
+
+    @DisplayName("Test stream all items")
+    @Test
+    void testStreamAllItems_ShouldPassEveryItem_WhenItemsExists() {
+        // Given
+        when(itemRepository.streamAllResponses()).thenReturn(responses.stream());
+        var streamed = new ArrayList<ItemResponse>();
+
+        // When
+        itemService.streamAllItems(streamed::add);
+
+        // Then
+        assertEquals(responses, streamed, "Every item should be streamed in order");
+        verifyNoInteractions(entityManager);
+    }
+
     @DisplayName("Test get item by id")
     @Test
     void testGetItemById_ShouldReturnItem_WhenProvidedItemIdExists() {
         // Given
-        var item = items.get(0);
-        when(itemRepository.findById(item.getId())).thenReturn(of(item));
+        var item = responses.get(0);
+        when(itemRepository.findResponseById(item.id())).thenReturn(of(item));
 
         // When
-        var result = itemService.findItemById(item.getId());
+        var result = itemService.findItemById(item.id());
 
         // Then
         assertThat(result).isNotNull();
         assertTrue(result.isPresent(), "Item should be present");
-        assertEquals(item.getCart(), result.get().getCart(), "Item names should be equal");
-        verify(itemRepository, times(1)).findById(item.getId());
+        assertEquals(item.cartId(), result.get().cartId(), "Item carts should be equal");
+        verify(itemRepository, times(1)).findResponseById(item.id());
     }
 
     @DisplayName("Test get item by id throws exception")
     @Test
     void testGetItemById_ShouldThrowsNotFoundException_WhenProvidedItemDoesNotExist() {
         // Given
-        var item = items.get(0);
-        when(itemRepository.findById(item.getId())).thenReturn(of(item));
+        var item = responses.get(0);
+        when(itemRepository.findResponseById(item.id())).thenReturn(of(item));
 
         // When
         var messgae = assertThrows(ResourceNotFoundException.class, () -> itemService.findItemById(2L));
@@ -81,7 +121,7 @@ class ItemServiceTest {
         assertThat(messgae).isNotNull();
         assertTrue(messgae.getMessage().contains("Item not found with id 2"));
 
-        verify(itemRepository, times(1)).findById(2L);
+        verify(itemRepository, times(1)).findResponseById(2L);
     }
 
     @DisplayName("Test create item")
@@ -97,7 +137,8 @@ class ItemServiceTest {
 
         // Then
         assertThat(result).isNotNull();
-        assertEquals(item.getCart(), result.getCart(), "Item names should be equal");
+        assertEquals(item.getSerialNumber(), result.serialNumber(), "Item names should be equal");
+        assertEquals(cart.getId(), result.cartId(), "Item carts should be equal");
         verify(cartRepository, times(1)).findById(item.getCart().getId());
         verify(itemRepository, times(1)).save(item);
     }
@@ -125,29 +166,61 @@ class ItemServiceTest {
     @Test
     void testUpdateItem_ShouldReturnUpdatedItem_WhenProvidedItemExists() {
         // Given
-        var item = items.get(0);
         var updatedItem = new Item("Item 3", cart);
-        when(itemRepository.findById(item.getId())).thenReturn(of(item));
-        when(itemRepository.save(item)).thenReturn(item);
+        when(itemRepository.lockLookupById(1L)).thenReturn(Optional.of(new ItemLookup(1L, "Item 1", null)));
+        when(itemRepository.updateItem(1L, "Item 3", null)).thenReturn(1);
 
         // When
-        var result = itemService.updateItem(item.getId(), updatedItem);
+        var result = itemService.updateItem(1L, updatedItem);
 
         // Then
         assertThat(result).isNotNull();
-        assertEquals(updatedItem.getSerialNumber(), result.getSerialNumber(), "Item names should be equal");
-        verify(itemRepository, times(1)).findById(item.getId());
-        verify(itemRepository, times(1)).save(item);
+        assertEquals(1L, result.id(), "Item ids should be equal");
+        assertEquals(updatedItem.getSerialNumber(), result.serialNumber(), "Item names should be equal");
+        verify(itemRepository, times(1)).updateItem(1L, "Item 3", null);
+        verify(itemRepository, never()).findById(anyLong());
+        verify(itemRepository, never()).save(any());
+    }
+
+    @DisplayName("Test update item with version")
+    @Test
+    void testUpdateItem_ShouldReturnNextVersion_WhenProvidedVersionIsCurrent() {
+        // Given
+        var updatedItem = new Item("Item 3", cart);
+        updatedItem.setVersion(4L);
+        when(itemRepository.lockLookupById(1L)).thenReturn(Optional.of(new ItemLookup(1L, "Item 1", null)));
+        when(itemRepository.updateItemIfVersion(1L, "Item 3", null, 4L)).thenReturn(1);
+
+        // When
+        var result = itemService.updateItem(1L, updatedItem);
+
+        // Then
+        assertEquals(5L, result.version(), "Version should be incremented");
+        verify(itemRepository, never()).updateItem(anyLong(), any(), any());
+    }
+
+    @DisplayName("Test update item throws conflict exception")
+    @Test
+    void testUpdateItem_ShouldThrowsConflictException_WhenProvidedVersionIsStale() {
+        // Given
+        var updatedItem = new Item("Item 3", cart);
+        updatedItem.setVersion(4L);
+        when(itemRepository.lockLookupById(1L)).thenReturn(Optional.of(new ItemLookup(1L, "Item 1", null)));
+        when(itemRepository.updateItemIfVersion(1L, "Item 3", null, 4L)).thenReturn(0);
+
+        // When
+        var messgae = assertThrows(ResourceConflictException.class, () -> itemService.updateItem(1L, updatedItem));
+
+        // Then
+        assertTrue(messgae.getMessage().contains("expected version 4"));
     }
 
     @DisplayName("Test update item throws exception")
     @Test
     void testUpdateItem_ShouldThrowsNotFoundException_WhenProvidedItemDoesNotExist() {
         // Given
-        var item = items.get(0);
         var updatedItem = new Item("Item 3", cart);
-        when(itemRepository.findById(item.getId())).thenReturn(of(item));
-        when(itemRepository.save(item)).thenReturn(item);
+        when(itemRepository.lockLookupById(2L)).thenReturn(Optional.empty());
 
         // When
         var messgae = assertThrows(ResourceNotFoundException.class, () -> itemService.updateItem(2L, updatedItem));
@@ -156,30 +229,32 @@ class ItemServiceTest {
         assertThat(messgae).isNotNull();
         assertTrue(messgae.getMessage().contains("Item not found with id 2"));
 
-        verify(itemRepository, times(1)).findById(2L);
+        verify(itemRepository, never()).updateItem(anyLong(), any(), any());
+        verify(cartRepository, never()).moveItemCount(any(), any());
     }
 
     @DisplayName("Test delete item")
     @Test
     void testDeleteItem_ShouldDeleteItem_WhenProvidedItemIdExists() {
         // Given
-        var item = items.get(0);
-        when(itemRepository.findById(item.getId())).thenReturn(of(item));
+        when(itemRepository.lockLookupById(1L)).thenReturn(Optional.of(new ItemLookup(1L, "Item 1", 1L)));
+        when(itemRepository.deleteItem(1L)).thenReturn(1);
 
         // When
-        itemService.deleteItem(item.getId());
+        itemService.deleteItem(1L);
 
         // Then
-        verify(itemRepository, times(1)).deleteById(item.getId());
-        verify(itemRepository, times(1)).findById(item.getId());
+        verify(itemRepository, times(1)).deleteItem(1L);
+        verify(cartRepository, times(1)).moveItemCount(1L, null);
+        verify(itemRepository, never()).findById(anyLong());
+        verify(itemRepository, never()).deleteById(anyLong());
     }
 
     @DisplayName("Test delete item throws exception")
     @Test
     void testDeleteItem_ShouldThrowsNotFoundException_WhenProvidedItemDoesNotExist() {
         // Given
-        var item = items.get(0);
-        when(itemRepository.findById(item.getId())).thenReturn(of(item));
+        when(itemRepository.lockLookupById(2L)).thenReturn(Optional.empty());
 
         // When
         var messgae = assertThrows(ResourceNotFoundException.class, () -> itemService.deleteItem(2L));
@@ -188,7 +263,7 @@ class ItemServiceTest {
         assertThat(messgae).isNotNull();
         assertTrue(messgae.getMessage().contains("Item not found with id 2"));
 
-        verify(itemRepository, times(1)).findById(2L);
+        verify(itemRepository, never()).deleteItem(anyLong());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package code.with.vanilson.market.cart;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Item Write Behind Test
+ * <p>
+ * Item additions through the write-behind log reach the database with the next flush.
+ */
+@SpringBootTest(properties = {
+        "market.items.write-behind.enabled=true",
+        "market.items.write-behind.max-pending=3"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Item Write Behind Test")
+class ItemWriteBehindTest {
+
+    @TempDir
+    static Path directory;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemWriteBehindService itemWriteBehindService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void logPath(DynamicPropertyRegistry registry) {
+        registry.add("market.items.write-behind.log-path", () -> directory.resolve("items.log").toString());
+    }
+
+    /**
+     * Test add item - POST /api/items/write-behind
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test add item - POST /api/items/write-behind is flushed to the database")
+    @Test
+    void testAddItem_ShouldInsertItem_WhenLogIsFlushed() throws Exception {
+        // Given
+        Long cartId = cartService.createCartWithItems(new Cart("Write behind")).id();
+        String serialNumber = "WB-" + System.nanoTime() % 1_000_000L;
+
+        // When
+        mockMvc.perform(post("/api/items/write-behind")
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"" + serialNumber + "\", \"cart\": {\"id\": " + cartId + "}}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.sequence").isNumber());
+
+        // Then
+        List<ItemLookup> items = awaitItems(serialNumber);
+        assertThat(items).singleElement().satisfies(item -> assertThat(item.cartId()).isEqualTo(cartId));
+        assertThat(meterRegistry.get("market.items.write.behind.flush").timer().count()).isPositive();
+        assertThat(meterRegistry.get("market.items.write.behind.lag").timer().count()).isPositive();
+    }
+
+    /**
+     * Test add item - POST /api/items/write-behind
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test add item - POST /api/items/write-behind without a cart")
+    @Test
+    void testAddItem_ShouldReturnBadRequest_WhenCartIsMissing() throws Exception {
+        mockMvc.perform(post("/api/items/write-behind")
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"WB-1\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test add item - POST /api/items/write-behind
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test add item - POST /api/items/write-behind rejects additions beyond the backlog limit")
+    @Test
+    void testAddItem_ShouldReturnServiceUnavailable_WhenTooManyItemsArePending() throws Exception {
+        // Given: the flusher drains far slower than these requests arrive
+        Long cartId = cartService.createCartWithItems(new Cart("Write behind full")).id();
+        String item = "{\"serialNumber\": \"WB-FULL\", \"cart\": {\"id\": " + cartId + "}}";
+        MockHttpServletResponse response = null;
+
+        // When
+        for (int i = 0; i < 10_000 && (response == null || response.getStatus() != 503); i++) {
+            response = mockMvc.perform(post("/api/items/write-behind").contentType("application/json").content(item))
+                    .andReturn().getResponse();
+        }
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    private List<ItemLookup> awaitItems(String serialNumber) throws InterruptedException {
+        List<ItemLookup> items = List.of();
+        for (int i = 0; i < 100 && items.isEmpty(); i++) {
+            Thread.sleep(50);
+            items = itemRepository.findLookupsBySerialNumber(serialNumber);
+        }
+        return items;
+    }
+}
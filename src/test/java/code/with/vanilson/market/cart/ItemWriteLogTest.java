@@ -0,0 +1,129 @@
+package code.with.vanilson.market.cart;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Item Write Log Test
+ */
+@DisplayName("Item Write Log Test")
+class ItemWriteLogTest {
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("Test append and read - records come back in order until released")
+    @Test
+    void testRead_ShouldReturnAppendedRecords_WhenNotYetReleased() throws IOException {
+        try (ItemWriteLog log = ItemWriteLog.open(directory.resolve("items.log"), 4096, 0)) {
+            // Given
+            log.append(1L, "SN-1", 100L);
+            log.append(2L, "SN-2", 200L);
+
+            // When
+            List<ItemWriteLog.Entry> entries = log.read(10);
+            log.advance(entries.get(0));
+
+            // Then
+            assertThat(entries).extracting(ItemWriteLog.Entry::serialNumber).containsExactly("SN-1", "SN-2");
+            assertThat(entries).extracting(ItemWriteLog.Entry::sequence).containsExactly(1L, 2L);
+            assertThat(log.pending()).isEqualTo(1);
+            assertThat(log.read(10)).extracting(ItemWriteLog.Entry::cartId).containsExactly(2L);
+        }
+    }
+
+    @DisplayName("Test append - the ring wraps once the head is released and refuses when full")
+    @Test
+    void testAppend_ShouldWrapAndRefuse_WhenLogFillsUp() throws IOException {
+        try (ItemWriteLog log = ItemWriteLog.open(directory.resolve("items.log"), 256, 0)) {
+            // Given: 38 byte records, four fit behind the header
+            for (int i = 0; i < 4; i++) {
+                assertThat(log.append(i, "SN-" + i, 0L)).isPositive();
+            }
+            assertThat(log.append(9L, "SN-9", 0L)).isEqualTo(-1);
+
+            // When
+            List<ItemWriteLog.Entry> entries = log.read(2);
+            log.advance(entries.get(1));
+            long sequence = log.append(5L, "SN-5", 0L);
+
+            // Then
+            assertThat(sequence).isEqualTo(5);
+            assertThat(log.read(10)).extracting(ItemWriteLog.Entry::serialNumber)
+                    .containsExactly("SN-2", "SN-3", "SN-5");
+        }
+    }
+
+    @DisplayName("Test open - records after the checkpoint are replayed")
+    @Test
+    void testOpen_ShouldReplayRecordsAfterCheckpoint_WhenReopened() throws IOException {
+        // Given
+        Path path = directory.resolve("items.log");
+        try (ItemWriteLog log = ItemWriteLog.open(path, 4096, 0)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(i, "SN-" + i, 0L);
+            }
+            log.advance(log.read(1).get(0));
+        }
+
+        // When: the database had committed up to sequence 3 before the crash
+        try (ItemWriteLog log = ItemWriteLog.open(path, 4096, 3)) {
+
+            // Then
+            assertThat(log.pending()).isEqualTo(2);
+            assertThat(log.read(10)).extracting(ItemWriteLog.Entry::sequence).containsExactly(4L, 5L);
+            assertThat(log.append(6L, "SN-6", 0L)).isEqualTo(6);
+        }
+    }
+
+    @DisplayName("Test open - a log keeps the id it was created with, another log gets its own")
+    @Test
+    void testOpen_ShouldKeepId_WhenReopened() throws IOException {
+        // Given
+        Path path = directory.resolve("identified.log");
+        List<Boolean> created = new ArrayList<>();
+        String id;
+        try (ItemWriteLog log = ItemWriteLog.open(path, 4096, (logId, isNew) -> {
+            created.add(isNew);
+            return 0;
+        })) {
+            id = log.id();
+        }
+
+        // When
+        try (ItemWriteLog reopened = ItemWriteLog.open(path, 4096, (logId, isNew) -> {
+            created.add(isNew);
+            return 0;
+        });
+             ItemWriteLog other = ItemWriteLog.open(directory.resolve("other.log"), 4096, 0)) {
+
+            // Then
+            assertThat(reopened.id()).isEqualTo(id);
+            assertThat(other.id()).isNotEqualTo(id);
+            assertThat(created).containsExactly(true, false);
+        }
+    }
+
+    @DisplayName("Test open - a log already open cannot be opened again")
+    @Test
+    void testOpen_ShouldFail_WhenLogIsAlreadyOpen() throws IOException {
+        // Given
+        Path path = directory.resolve("locked.log");
+        try (ItemWriteLog log = ItemWriteLog.open(path, 4096, 0)) {
+
+            // When / Then
+            assertThatThrownBy(() -> ItemWriteLog.open(path, 4096, 0))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("already open");
+        }
+    }
+}
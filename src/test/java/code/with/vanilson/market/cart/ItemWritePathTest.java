@@ -0,0 +1,123 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.support.QueryCountConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Item Write Path Test
+ * <p>
+ * Checks that item updates and deletes reach the database without loading the item: the item
+ * row is locked with a single select, then one statement for the cart item counters and one
+ * for the item.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Item Write Path Test")
+class ItemWritePathTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    private Long cartId;
+    private Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        var cart = new Cart("Write path");
+        cart.getItems().add(new Item("WP-1", null));
+        var created = cartService.createCartWithItems(cart);
+        cartId = created.id();
+        itemId = created.items().get(0).id();
+        QueryCountConfig.reset();
+    }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} only selects to lock the item")
+    @Test
+    void testUpdateItem_ShouldOnlySelectForLock_WhenVersionIsCurrent() throws Exception {
+        mockMvc.perform(put("/api/items/{id}", itemId)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"WP-2\", \"version\": 0, \"cart\": {\"id\": " + cartId + "}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        assertThat(QueryCountConfig.count().getSelect()).isEqualTo(1);
+        assertThat(QueryCountConfig.count().getTotal()).isEqualTo(3);
+        assertThat(itemRepository.findById(itemId)).hasValueSatisfying(item -> {
+            assertThat(item.getSerialNumber()).isEqualTo("WP-2");
+            assertThat(item.getVersion()).isEqualTo(1L);
+        });
+    }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} with a stale version")
+    @Test
+    void testUpdateItem_ShouldReturnConflict_WhenVersionIsStale() throws Exception {
+        mockMvc.perform(put("/api/items/{id}", itemId)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"WP-3\", \"version\": 7, \"cart\": {\"id\": " + cartId + "}}"))
+                .andExpect(status().isConflict());
+    }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} to a cart that does not exist")
+    @Test
+    void testUpdateItem_ShouldReturnNotFound_WhenCartDoesNotExist() throws Exception {
+        mockMvc.perform(put("/api/items/{id}", itemId)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"WP-4\", \"cart\": {\"id\": " + (cartId + 1_000_000) + "}}"))
+                .andExpect(status().isNotFound());
+
+        assertThat(itemRepository.findById(itemId)).hasValueSatisfying(item ->
+                assertThat(item.getSerialNumber()).isEqualTo("WP-1"));
+    }
+
+    /**
+     * Test delete item - DELETE /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete item - DELETE /api/items/{id} only selects to lock the item")
+    @Test
+    void testDeleteItem_ShouldOnlySelectForLock_WhenItemExists() throws Exception {
+        mockMvc.perform(delete("/api/items/{id}", itemId))
+                .andExpect(status().isNoContent());
+
+        assertThat(QueryCountConfig.count().getSelect()).isEqualTo(1);
+        assertThat(QueryCountConfig.count().getTotal()).isEqualTo(3);
+        assertThat(itemRepository.existsById(itemId)).isFalse();
+
+        mockMvc.perform(delete("/api/items/{id}", itemId))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,153 @@
+package code.with.vanilson.market.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Payload Format Test
+ * <p>
+ * Checks the CBOR and Smile representations of the API next to JSON, and that responses above
+ * {@code server.compression.min-response-size} are gzipped by the server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Payload Format Test")
+class PayloadFormatTest {
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @LocalServerPort
+    int port;
+
+    private CartResponse cart;
+
+    @BeforeEach
+    void setUp() {
+        Cart newCart = new Cart("Payload " + System.nanoTime());
+        for (int i = 0; i < 200; i++) {
+            newCart.getItems().add(new Item("PF" + System.nanoTime() % 1_000_000_000L + "-" + i, null));
+        }
+        cart = cartService.createCartWithItems(newCart);
+    }
+
+    /**
+     * Test get cart by id - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} answers CBOR and Smile by Accept")
+    @Test
+    void testGetCartById_ShouldReturnBinaryFormat_WhenAccepted() throws Exception {
+        // When
+        byte[] cbor = mockMvc.perform(get("/api/carts/{id}", cart.id()).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(get("/api/carts/{id}", cart.id()).accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] json = mockMvc.perform(get("/api/carts/{id}", cart.id()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        assertThat(new CBORMapper().readValue(cbor, CartResponse.class)).isEqualTo(cart);
+        assertThat(new SmileMapper().readValue(smile, CartResponse.class)).isEqualTo(cart);
+        assertThat(objectMapper.readValue(json, CartResponse.class)).isEqualTo(cart);
+        assertThat(cbor.length).isLessThan(json.length);
+        assertThat(smile.length).isLessThan(json.length);
+    }
+
+    /**
+     * Test create item - POST /api/items/create-item
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create item - POST /api/items/create-item reads a CBOR body")
+    @Test
+    void testCreateItem_ShouldReadCborBody_WhenContentTypeIsCbor() throws Exception {
+        // Given
+        byte[] body = new CBORMapper().writeValueAsBytes(Map.of("serialNumber", "PF-CBOR", "cart", Map.of("id", cart.id())));
+
+        // When / Then
+        byte[] created = mockMvc.perform(post("/api/items/create-item")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+        ItemResponse item = new CBORMapper().readValue(created, ItemResponse.class);
+        assertThat(item.serialNumber()).isEqualTo("PF-CBOR");
+        assertThat(item.cartId()).isEqualTo(cart.id());
+    }
+
+    /**
+     * Test get cart by id over HTTP - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} is gzipped above the size threshold only")
+    @Test
+    void testGetCartById_ShouldCompress_WhenResponseIsLarge() throws Exception {
+        // Given
+        HttpClient client = HttpClient.newHttpClient();
+        Long itemId = cart.items().get(0).id();
+
+        // When
+        HttpResponse<byte[]> large = client.send(HttpRequest.newBuilder(URI.create(url("/api/carts/" + cart.id())))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> small = client.send(HttpRequest.newBuilder(URI.create(url("/api/items/" + itemId)))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        // Then
+        assertThat(large.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(large.headers().firstValue(HttpHeaders.ETAG)).hasValue("W/\"0\"");
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(large.body()))) {
+            assertThat(objectMapper.readValue(gzip, CartResponse.class)).isEqualTo(cart);
+        }
+        assertThat(small.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port + path;
+    }
+}
@@ -0,0 +1,137 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.changes.CartChange;
+import code.with.vanilson.market.changes.CartChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Serial Number Index Test
+ */
+@DisplayName("Serial Number Index Test")
+class SerialNumberIndexTest {
+
+    private SerialNumberIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SerialNumberIndex(true, true);
+        index.put(List.of(
+                new ItemLookup(1L, "AB-100", 10L),
+                new ItemLookup(2L, "AB-200", 10L),
+                new ItemLookup(3L, "AC-100", 20L),
+                new ItemLookup(4L, "AB-100", 20L)));
+    }
+
+    @DisplayName("Test find - every item with the serial number")
+    @Test
+    void testFind_ShouldReturnAllItems_WhenSerialNumberIsShared() {
+        // When
+        List<ItemLookup> items = index.find("AB-100");
+
+        // Then
+        assertThat(items).extracting(ItemLookup::id).containsExactly(1L, 4L);
+        assertThat(index.find("ZZ")).isEmpty();
+    }
+
+    @DisplayName("Test find by prefix - sorted by serial number and limited")
+    @Test
+    void testFindByPrefix_ShouldReturnMatchesInOrder_WhenPrefixMatches() {
+        // When / Then
+        assertThat(index.findByPrefix("AB", 10)).extracting(ItemLookup::id).containsExactly(1L, 4L, 2L);
+        assertThat(index.findByPrefix("AB", 2)).extracting(ItemLookup::id).containsExactly(1L, 4L);
+        assertThat(index.findByPrefix("A", 10)).hasSize(4);
+        assertThat(index.findByPrefix("B", 10)).isEmpty();
+    }
+
+    @DisplayName("Test put - an update moves the item to its new serial number")
+    @Test
+    void testPut_ShouldReplaceOldEntry_WhenItemIsUpdated() {
+        // When
+        index.put(new ItemLookup(1L, "XY-1", 10L));
+
+        // Then
+        assertThat(index.find("AB-100")).extracting(ItemLookup::id).containsExactly(4L);
+        assertThat(index.find("XY-1")).extracting(ItemLookup::id).containsExactly(1L);
+    }
+
+    @DisplayName("Test remove - by item and by cart")
+    @Test
+    void testRemove_ShouldDropEntries_WhenItemOrCartIsDeleted() {
+        // When
+        index.remove(2L);
+        index.removeCart(20L);
+
+        // Then
+        assertThat(index.findByPrefix("", 10)).extracting(ItemLookup::id).containsExactly(1L);
+    }
+
+    @DisplayName("Test disabled index - writes are ignored")
+    @Test
+    void testPut_ShouldIgnoreWrites_WhenIndexIsDisabled() {
+        // Given
+        SerialNumberIndex disabled = new SerialNumberIndex(false, false);
+
+        // When
+        disabled.put(new ItemLookup(1L, "AB-100", 10L));
+
+        // Then
+        assertThat(disabled.isReady()).isFalse();
+        assertThat(disabled.find("AB-100")).isEmpty();
+    }
+
+    @DisplayName("Test load - writes committed while loading are applied after the loaded rows")
+    @Test
+    void testLoad_ShouldApplyWritesAfterLoadedRows_WhenWritesCommitDuringLoad() {
+        // Given
+        SerialNumberIndex loading = new SerialNumberIndex(true, true);
+        Stream<ItemLookup> snapshot = Stream.of(
+                        new ItemLookup(1L, "AB-100", 10L),
+                        new ItemLookup(2L, "AB-200", 10L))
+                .peek(item -> {
+                    if (item.id() == 1L) {
+                        // Committed while the older rows are still being read
+                        loading.remove(1L);
+                        loading.put(new ItemLookup(2L, "XY-2", 10L));
+                    }
+                });
+
+        // When
+        loading.load(snapshot);
+
+        // Then
+        assertThat(loading.isReady()).isTrue();
+        assertThat(loading.findByPrefix("", 10)).containsExactly(new ItemLookup(2L, "XY-2", 10L));
+    }
+
+    @DisplayName("Test on changes - published changes of other instances are applied")
+    @Test
+    void testOnChanges_ShouldApplyChanges_WhenChangesArePublished() {
+        // When
+        index.onChanges(List.of(
+                new CartChange(1L, CartChangeType.ITEM_CREATED, 30L, 5L, "AD-1", null),
+                new CartChange(2L, CartChangeType.ITEM_UPDATED, 10L, 1L, "AD-2", null),
+                new CartChange(3L, CartChangeType.ITEM_DELETED, 10L, 2L, "AB-200", null),
+                new CartChange(4L, CartChangeType.CART_DELETED, 20L, null, null, null)));
+
+        // Then
+        assertThat(index.findByPrefix("", 10)).extracting(ItemLookup::id).containsExactly(5L, 1L);
+        assertThat(index.find("AD-2")).containsExactly(new ItemLookup(1L, "AD-2", 10L));
+    }
+
+    @DisplayName("Test enabled index - the change feed is required")
+    @Test
+    void testConstructor_ShouldFail_WhenChangeFeedIsDisabled() {
+        // When / Then
+        assertThatThrownBy(() -> new SerialNumberIndex(true, false))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("market.changes.enabled");
+    }
+}
@@ -0,0 +1,183 @@
+package code.with.vanilson.market.cart;
+
+import code.with.vanilson.market.changes.CartChangeOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.cache.CacheMetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Optional.of;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Service Cache Test
+ */
+@SpringBootTest(classes = {CacheConfig.class, CartService.class, ItemService.class, SerialNumberIndex.class},
+        properties = {
+                "spring.cache.type=caffeine",
+                "spring.cache.cache-names=carts,items",
+                "spring.cache.caffeine.spec=maximumSize=100,expireAfterWrite=1m,recordStats"})
+@ImportAutoConfiguration({CacheAutoConfiguration.class, MetricsAutoConfiguration.class,
+        CompositeMeterRegistryAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class,
+        CacheMetricsAutoConfiguration.class})
+@DisplayName("Service Cache Test")
+class ServiceCacheTest {
+
+    @MockBean
+    CartRepository cartRepository;
+
+    @MockBean
+    ItemRepository itemRepository;
+
+    @MockBean
+    EntityManager entityManager;
+
+    @MockBean
+    CartChangeOutbox changeOutbox;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Cart cart;
+    private CartResponse cartResponse;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.CARTS).clear();
+        cacheManager.getCache(CacheConfig.ITEMS).clear();
+        cart = new Cart(1L, "Cart 1", new ArrayList<>());
+        cartResponse = new CartResponse(1L, "Cart 1", 0, 0L, List.of());
+        when(cartRepository.findRowsById(1L))
+                .thenReturn(List.of(new CartItemRow(1L, "Cart 1", 0, 0L, null, null, null)));
+        when(cartRepository.findById(1L)).thenReturn(of(cart));
+        when(itemRepository.findResponseById(10L)).thenReturn(of(new ItemResponse(10L, "Item 1", 1L, 0L)));
+        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemRepository.lockLookupById(10L)).thenReturn(of(new ItemLookup(10L, "Item 1", 1L)));
+        when(itemRepository.updateItem(eq(10L), any(), any())).thenReturn(1);
+        when(itemRepository.deleteItem(10L)).thenReturn(1);
+        when(cartRepository.deleteCart(1L)).thenReturn(1);
+    }
+
+    @DisplayName("Test find cart by id is served from the cache")
+    @Test
+    void testFindCartById_ShouldHitRepositoryOnce_WhenCalledTwice() {
+        // When
+        var first = cartService.findCartById(1L);
+        var second = cartService.findCartById(1L);
+
+        // Then
+        assertThat(first).contains(cartResponse);
+        assertThat(second).containsSame(first.orElseThrow());
+        verify(cartRepository, times(1)).findRowsById(1L);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", CacheConfig.CARTS).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @DisplayName("Test find cart by id does not cache a cart loaded while an item write lands")
+    @Test
+    void testFindCartById_ShouldNotCacheLoadedCart_WhenCartIsEvictedDuringTheLoad() throws Exception {
+        // Given
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        when(cartRepository.findRowsById(1L)).thenAnswer(invocation -> {
+            loaded.countDown();
+            written.await(5, TimeUnit.SECONDS);
+            return List.of(new CartItemRow(1L, "Cart 1", 0, 0L, null, null, null));
+        }).thenReturn(List.of(new CartItemRow(1L, "Cart 1", 1, 1L, 11L, "Item 2", 0L)));
+        CompletableFuture<Optional<CartResponse>> read = CompletableFuture.supplyAsync(() -> cartService.findCartById(1L));
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        itemService.createItem(new Item("Item 2", new Cart(1L, "Cart 1", new ArrayList<>())));
+        written.countDown();
+
+        // Then
+        assertThat(read.get(5, TimeUnit.SECONDS)).map(CartResponse::version).contains(0L);
+        assertThat(cartService.findCartById(1L)).map(CartResponse::version).contains(1L);
+        verify(cartRepository, times(2)).findRowsById(1L);
+    }
+
+    @DisplayName("Test delete cart invalidates the cached cart")
+    @Test
+    void testDeleteCart_ShouldEvictCart_WhenCartIsCached() {
+        // Given
+        cartService.findCartById(1L);
+
+        // When
+        cartService.deleteCart(1L);
+        cartService.findCartById(1L);
+
+        // Then
+        verify(cartRepository, times(2)).findRowsById(1L);
+    }
+
+    @DisplayName("Test create item invalidates the cached cart")
+    @Test
+    void testCreateItem_ShouldEvictCart_WhenCartIsCached() {
+        // Given
+        cartService.findCartById(1L);
+
+        // When
+        itemService.createItem(new Item("Item 2", new Cart(1L, "Cart 1", new ArrayList<>())));
+        cartService.findCartById(1L);
+
+        // Then
+        verify(cartRepository, times(2)).findRowsById(1L);
+    }
+
+    @DisplayName("Test update item invalidates the cached item")
+    @Test
+    void testUpdateItem_ShouldEvictItem_WhenItemIsCached() {
+        // Given
+        itemService.findItemById(10L);
+        itemService.findItemById(10L);
+
+        // When
+        itemService.updateItem(10L, new Item("Item 3", cart));
+        itemService.findItemById(10L);
+
+        // Then
+        verify(itemRepository, times(2)).findResponseById(10L); // first read and the read after eviction
+    }
+
+    @DisplayName("Test delete item invalidates the cached item")
+    @Test
+    void testDeleteItem_ShouldEvictItem_WhenItemIsCached() {
+        // Given
+        itemService.findItemById(10L);
+
+        // When
+        itemService.deleteItem(10L);
+
+        // Then
+        assertThat(cacheManager.getCache(CacheConfig.ITEMS).get(10L)).isNull();
+    }
+}
@@ -0,0 +1,298 @@
+package code.with.vanilson.market.changes;
+
+import code.with.vanilson.market.cart.Cart;
+import code.with.vanilson.market.cart.CartService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cart Change Feed Test
+ * <p>
+ * Checks that writes append their changes to the outbox in their own transaction and that the
+ * relay publishes them, in order and resumable by offset, on {@code /api/carts/changes}.
+ */
+@SpringBootTest(properties = {
+        "market.changes.enabled=true",
+        "market.changes.relay-interval=20ms",
+        "market.changes.retention=0s",
+        "market.changes.send-timeout=500ms"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Cart Change Feed Test")
+class CartChangeFeedTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    CartChangeRelay relay;
+
+    @Autowired
+    CartService cartService;
+
+    private String serial;
+
+    @BeforeEach
+    void setUp() {
+        serial = "F" + System.nanoTime() % 1_000_000_000L;
+    }
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart appends the cart and its items")
+    @Test
+    void testCreateCart_ShouldAppendCartAndItemChanges_WhenCartIsCreated() throws Exception {
+        // When
+        JsonNode cart = createCart(serial + "A", serial + "B");
+
+        // Then
+        List<String> types = jdbcTemplate.queryForList(
+                "SELECT change_type FROM tb_cart_changes WHERE cart_id = ? ORDER BY id", String.class,
+                cart.get("id").asLong());
+        assertThat(types).containsExactly("CART_CREATED", "ITEM_CREATED", "ITEM_CREATED");
+    }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} appends nothing when the update is rolled back")
+    @Test
+    void testUpdateItem_ShouldNotAppendChange_WhenUpdateConflicts() throws Exception {
+        // Given
+        JsonNode cart = createCart(serial + "A");
+        long itemId = cart.get("items").get(0).get("id").asLong();
+
+        // When
+        mockMvc.perform(put("/api/items/{id}", itemId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"serialNumber\": \"" + serial + "B\", \"cart\": {\"id\": " + cart.get("id")
+                                + "}, \"version\": 7}"))
+                .andExpect(status().isConflict());
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_cart_changes WHERE item_id = ? "
+                + "AND change_type = 'ITEM_UPDATED'", Long.class, itemId)).isZero();
+    }
+
+    /**
+     * Test delete carts - DELETE /api/carts?namePrefix=
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test delete carts - DELETE /api/carts?namePrefix= appends every cart when more match than one statement takes")
+    @Test
+    void testDeleteCarts_ShouldAppendEveryCart_WhenMoreCartsMatchThanOneChunk() throws Exception {
+        // Given: one more cart than a delete by id may list
+        String prefix = "Bulk " + serial + " ";
+        for (int i = 0; i <= 1000; i++) {
+            cartService.createCartWithItems(new Cart(prefix + i));
+        }
+        long lastChange = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tb_cart_changes", Long.class);
+
+        // When
+        mockMvc.perform(delete("/api/carts").param("namePrefix", prefix))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(1001));
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_carts WHERE name LIKE ?", Long.class,
+                prefix + "%")).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_cart_changes "
+                + "WHERE change_type = 'CART_DELETED' AND id > ?", Long.class, lastChange)).isEqualTo(1001);
+    }
+
+    /**
+     * Test changes - GET /api/carts/changes
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test changes - GET /api/carts/changes streams changes and resumes from Last-Event-ID")
+    @Test
+    void testChanges_ShouldStreamAndResume_WhenChangesArePublished() throws Exception {
+        // Given
+        long offset = lastOffset();
+        MvcResult feed = subscribe("after", offset);
+
+        // When
+        JsonNode cart = createCart(serial + "A");
+        mockMvc.perform(post("/api/items/create-item")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"serialNumber\": \"" + serial + "B\", \"cart\": {\"id\": " + cart.get("id") + "}}"))
+                .andExpect(status().isCreated());
+
+        // Then
+        List<JsonNode> events = awaitEvents(feed, serial + "B");
+        assertThat(events).extracting(event -> event.get("offset").asLong()).startsWith(offset + 1).isSorted();
+        assertThat(events).extracting(event -> event.get("type").asText())
+                .containsSubsequence("CART_CREATED", "ITEM_CREATED", "ITEM_CREATED");
+
+        MvcResult resumed = mockMvc.perform(get("/api/carts/changes")
+                        .header("Last-Event-ID", events.get(0).get("offset").asLong())
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        List<JsonNode> replayed = awaitEvents(resumed, serial + "B");
+        assertThat(replayed.get(0).get("offset").asLong()).isEqualTo(events.get(1).get("offset").asLong());
+    }
+
+    /**
+     * Test changes - GET /api/carts/changes
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test changes - GET /api/carts/changes returns 410 for an offset past retention")
+    @Test
+    void testChanges_ShouldReturnGone_WhenOffsetIsNoLongerRetained() throws Exception {
+        // Given
+        createCart(serial + "A", serial + "B");
+        long offset = lastOffset();
+        awaitEvents(subscribe("after", offset - 3), serial + "B");
+        relay.purgePublished();
+
+        // When / Then
+        mockMvc.perform(get("/api/carts/changes").param("after", String.valueOf(offset - 3))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isGone());
+    }
+
+    /**
+     * Test changes - GET /api/carts/changes
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test changes - GET /api/carts/changes drops a subscriber that stops reading, the others carry on")
+    @Test
+    void testChanges_ShouldDropSubscriber_WhenItsClientStopsReading() throws Exception {
+        // Given
+        long offset = lastOffset();
+        StalledEmitter stalled = new StalledEmitter();
+        relay.subscribe(offset, stalled);
+        MvcResult feed = subscribe("after", offset);
+
+        try {
+            // When
+            createCart(serial + "A");
+
+            // Then
+            awaitEvents(feed, serial + "A");
+            assertThat(stalled.completed.await(10, TimeUnit.SECONDS)).isTrue();
+            createCart(serial + "B");
+            awaitEvents(feed, serial + "B");
+        } finally {
+            stalled.release.countDown();
+        }
+    }
+
+    private JsonNode createCart(String... serialNumbers) throws Exception {
+        StringBuilder items = new StringBuilder();
+        for (String serialNumber : serialNumbers) {
+            items.append(items.isEmpty() ? "" : ", ").append("{\"serialNumber\": \"").append(serialNumber).append("\"}");
+        }
+        String body = mockMvc.perform(post("/api/carts/create-cart")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Changes\", \"items\": [" + items + "]}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private MvcResult subscribe(String param, long offset) throws Exception {
+        return mockMvc.perform(get("/api/carts/changes").param(param, String.valueOf(offset))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    /**
+     * Waits for the relay to publish everything appended so far.
+     */
+    private long lastOffset() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Long unpublished = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM tb_cart_changes WHERE change_offset IS NULL", Long.class);
+            if (unpublished == 0) {
+                return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(change_offset), 0) FROM tb_cart_changes",
+                        Long.class);
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Changes were not published");
+    }
+
+    /**
+     * Waits until the feed has sent a change for {@code serialNumber} and returns every change
+     * sent so far.
+     */
+    private List<JsonNode> awaitEvents(MvcResult feed, String serialNumber) throws Exception {
+        for (int i = 0; i < 500; i++) {
+            String content = feed.getResponse().getContentAsString();
+            if (content.contains("\"serialNumber\":\"" + serialNumber + "\"")) {
+                List<JsonNode> events = new ArrayList<>();
+                for (String line : content.split("\n")) {
+                    if (line.startsWith("data:")) {
+                        events.add(objectMapper.readTree(line.substring("data:".length())));
+                    }
+                }
+                return events;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("No change for " + serialNumber + " in " + feed.getResponse().getContentAsString());
+    }
+
+    /**
+     * An emitter whose client never takes the event it is sent.
+     */
+    private static final class StalledEmitter extends SseEmitter {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+            super.complete();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package code.with.vanilson.market.datasource;
+
+import code.with.vanilson.market.cart.CacheConfig;
+import code.with.vanilson.market.cart.CartService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Replica Routing Test
+ * <p>
+ * Runs against two embedded H2 databases, the primary of the {@code test} profile and a
+ * replica migrated separately. Nothing replicates between them, so where a row can be read
+ * from tells which database served the request.
+ */
+@SpringBootTest(properties = {
+        "market.datasource.replicas.enabled=true",
+        "market.datasource.replicas.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "market.datasource.replicas.max-lag=5s"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Replica Routing Test")
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:market_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    private static JdbcTemplate replica;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @BeforeAll
+    static void migrateReplica() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        replica = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Test get cart by id - GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} reads from the replica")
+    @Test
+    void testGetCartById_ShouldReadFromReplica_WhenClientHasNotWritten() throws Exception {
+        // Given
+        long id = ThreadLocalRandom.current().nextLong(1_000_000, 2_000_000);
+        replica.update("insert into tb_carts (id, name, item_count, version) values (?, 'Replica only', 0, 0)", id);
+
+        // When / Then
+        mockMvc.perform(get("/api/carts/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Replica only"));
+    }
+
+    /**
+     * Test create cart then get it - POST /api/carts/create-cart, GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} reads from the primary after the client wrote")
+    @Test
+    void testGetCartById_ShouldReadFromPrimary_WhenClientJustWrote() throws Exception {
+        // Given
+        MvcResult created = mockMvc.perform(post("/api/carts/create-cart")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Primary only\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                .andReturn();
+        Cookie pin = created.getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+        long id = ((Number) JsonPath.read(created.getResponse().getContentAsString(), "$.id")).longValue();
+        // Created carts are cached, the reads below have to reach a database
+        cacheManager.getCache(CacheConfig.CARTS).evict(id);
+
+        // When / Then
+        mockMvc.perform(get("/api/carts/{id}", id))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/carts/{id}", id).cookie(pin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Primary only"));
+    }
+
+    /**
+     * Test create cart then get it from a lagging replica - POST /api/carts/create-cart, GET /api/carts/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id - GET /api/carts/{id} does not cache what a lagging replica returned")
+    @Test
+    void testGetCartById_ShouldNotCacheReplicaRead_WhenReplicaIsBehind() throws Exception {
+        // Given
+        MvcResult created = mockMvc.perform(post("/api/carts/create-cart")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Fresh\"}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Cookie pin = created.getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+        long id = ((Number) JsonPath.read(created.getResponse().getContentAsString(), "$.id")).longValue();
+        cacheManager.getCache(CacheConfig.CARTS).evict(id);
+        // The replica has yet to see the name the cart was created with
+        replica.update("insert into tb_carts (id, name, item_count, version) values (?, 'Stale', 0, 0)", id);
+
+        // When
+        mockMvc.perform(get("/api/carts/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Stale"));
+
+        // Then
+        assertThat(cacheManager.getCache(CacheConfig.CARTS).get(id)).isNull();
+        mockMvc.perform(get("/api/carts/{id}", id).cookie(pin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Fresh"));
+        assertThat(cacheManager.getCache(CacheConfig.CARTS).get(id)).isNotNull();
+    }
+
+    @DisplayName("Test read-only service calls - go to the replica unless the thread is pinned to the primary")
+    @Test
+    void testGetCartTotals_ShouldReadFromReplica_WhenNotPinned() {
+        // Given
+        long primaryCarts = jdbcTemplate.queryForObject("select count(*) from tb_carts", Long.class);
+        long replicaCarts;
+        do {
+            replica.update("insert into tb_carts (id, name, item_count, version) values (?, 'Replica only', 0, 0)",
+                    ThreadLocalRandom.current().nextLong(2_000_000, 3_000_000));
+            replicaCarts = replica.queryForObject("select count(*) from tb_carts", Long.class);
+        } while (replicaCarts == primaryCarts);
+
+        // When / Then
+        assertThat(cartService.getCartTotals().carts()).isEqualTo(replicaCarts);
+        PrimaryPin.set();
+        try {
+            assertThat(cartService.getCartTotals().carts()).isEqualTo(primaryCarts);
+        } finally {
+            PrimaryPin.clear();
+        }
+    }
+}
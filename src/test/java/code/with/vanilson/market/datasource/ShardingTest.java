@@ -0,0 +1,219 @@
+package code.with.vanilson.market.datasource;
+
+import code.with.vanilson.market.cart.Cart;
+import code.with.vanilson.market.cart.CartResponse;
+import code.with.vanilson.market.cart.CartService;
+import code.with.vanilson.market.cart.Item;
+import code.with.vanilson.market.cart.ItemResponse;
+import code.with.vanilson.market.cart.ItemService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sharding Test
+ * <p>
+ * Runs against three embedded H2 databases, the one of the {@code test} profile as shard 0
+ * and two more migrated at startup. Every assertion on placement reads the shard databases
+ * directly.
+ */
+@SpringBootTest(properties = {
+        "market.datasource.shards.enabled=true",
+        "market.datasource.shards.urls=" + ShardingTest.SHARD_1_URL + "," + ShardingTest.SHARD_2_URL})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Sharding Test")
+class ShardingTest {
+    static final String SHARD_1_URL = "jdbc:h2:mem:market_shard_1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    static final String SHARD_2_URL = "jdbc:h2:mem:market_shard_2;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    private static final AtomicInteger SERIALS = new AtomicInteger();
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    ShardRoutingDataSource shards;
+
+    /**
+     * One cart per shard, each with an item, by shard.
+     */
+    private final Map<Integer, CartResponse> carts = new TreeMap<>();
+
+    @BeforeEach
+    void createCartOnEveryShard() {
+        // New carts go to the shards in turn
+        for (int i = 0; i < shards.shardCount(); i++) {
+            Cart cart = new Cart("Sharded");
+            cart.getItems().add(new Item(serial(), null));
+            CartResponse created = cartService.createCartWithItems(cart);
+            carts.put(ShardIds.shardOf(created.id()), created);
+        }
+    }
+
+    @DisplayName("Test create cart - every shard gets a cart, stored with its items where its id says")
+    @Test
+    void testCreateCartWithItems_ShouldStoreCartAndItemsOnShardOfId_WhenCartsAreCreated() {
+        // Given / When
+        assertThat(carts).containsOnlyKeys(0, 1, 2);
+
+        // Then
+        carts.forEach((shard, cart) -> {
+            Long itemId = cart.items().get(0).id();
+            assertThat(ShardIds.shardOf(itemId)).isEqualTo(shard);
+            for (int other = 0; other < shards.shardCount(); other++) {
+                JdbcTemplate jdbc = new JdbcTemplate(shards.shard(other));
+                int expected = other == shard ? 1 : 0;
+                assertThat(jdbc.queryForObject("select count(*) from tb_carts where id = ?", Integer.class,
+                        cart.id())).isEqualTo(expected);
+                assertThat(jdbc.queryForObject("select count(*) from tb_items where id = ? and cart_id = ?",
+                        Integer.class, itemId, cart.id())).isEqualTo(expected);
+            }
+        });
+    }
+
+    /**
+     * Test get cart by id and create item - GET /api/carts/{id}, POST /api/items/create-item
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get cart by id and create item - GET /api/carts/{id} and POST /api/items/create-item go to the shard of the cart")
+    @Test
+    void testCreateItem_ShouldStoreItemOnShardOfCart_WhenCartIsOnAnotherShard() throws Exception {
+        // Given
+        CartResponse cart = carts.get(2);
+        String serial = serial();
+
+        // When
+        String body = mockMvc.perform(post("/api/items/create-item")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"serialNumber\":\"" + serial + "\",\"cart\":{\"id\":" + cart.id() + "}}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        long itemId = ((Number) JsonPath.read(body, "$.id")).longValue();
+        assertThat(ShardIds.shardOf(itemId)).isEqualTo(2);
+        assertThat(new JdbcTemplate(shards.shard(2)).queryForObject(
+                "select serial_number from tb_items where id = ?", String.class, itemId)).isEqualTo(serial);
+        mockMvc.perform(get("/api/carts/{id}", cart.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemCount").value(2))
+                .andExpect(jsonPath("$.items.length()").value(2));
+        mockMvc.perform(get("/api/items/serial/{serialNumber}", serial))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].cartId").value(cart.id()));
+    }
+
+    @DisplayName("Test get all carts and items - every shard is read, results come in id order")
+    @Test
+    void testGetAllCartsAndItems_ShouldMergeEveryShard_WhenCartsAreSpread() {
+        // Given
+        List<Long> cartIds = carts.values().stream().map(CartResponse::id).toList();
+        List<Long> itemIds = carts.values().stream().map(cart -> cart.items().get(0).id()).toList();
+
+        // When
+        List<Long> allCarts = cartService.getAllCarts().stream().map(CartResponse::id).toList();
+        List<Long> allItems = itemService.getAllItems().stream().map(ItemResponse::id).toList();
+
+        // Then
+        assertThat(allCarts).containsAll(cartIds).isSorted();
+        assertThat(allItems).containsAll(itemIds).isSorted();
+        List<Long> streamed = new ArrayList<>();
+        cartService.streamAllCarts(cart -> streamed.add(cart.id()));
+        assertThat(streamed).isEqualTo(allCarts);
+        long rows = 0;
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            rows += new JdbcTemplate(shards.shard(shard)).queryForObject("select count(*) from tb_carts", Long.class);
+        }
+        assertThat(cartService.getCartTotals().carts()).isEqualTo(rows);
+    }
+
+    @DisplayName("Test get carts page - a page continues on the next shard once a shard runs out")
+    @Test
+    void testGetCartsPage_ShouldContinueOnNextShard_WhenShardRunsOut() {
+        // Given
+        List<Long> allCarts = cartService.getAllCarts().stream().map(CartResponse::id).toList();
+        long lastOnShard1 = allCarts.stream().filter(id -> ShardIds.shardOf(id) == 1).reduce((a, b) -> b).orElseThrow();
+
+        // When
+        List<Long> page = cartService.getCartsPage(lastOnShard1 - 1, 2).stream().map(CartResponse::id).toList();
+
+        // Then
+        assertThat(page).containsExactly(lastOnShard1, allCarts.get(allCarts.indexOf(lastOnShard1) + 1));
+        assertThat(ShardIds.shardOf(page.get(1))).isEqualTo(2);
+    }
+
+    /**
+     * Test update item - PUT /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test update item - PUT /api/items/{id} cannot move an item to a cart on another shard")
+    @Test
+    void testUpdateItem_ShouldReturnConflict_WhenCartIsOnAnotherShard() throws Exception {
+        // Given
+        Long itemId = carts.get(1).items().get(0).id();
+
+        // When / Then
+        mockMvc.perform(put("/api/items/{id}", itemId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"serialNumber\":\"" + serial() + "\",\"cart\":{\"id\":" + carts.get(2).id() + "}}"))
+                .andExpect(status().isConflict());
+    }
+
+    /**
+     * Test bulk import - POST /api/items/bulk
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test bulk import - POST /api/items/bulk stores every row on the shard of its cart")
+    @Test
+    void testImportItems_ShouldStoreRowsOnShardOfTheirCart_WhenCartsAreOnDifferentShards() throws Exception {
+        // Given
+        String body = "[{\"serialNumber\":\"" + serial() + "\",\"cart\":{\"id\":" + carts.get(2).id() + "}},"
+                + "{\"serialNumber\":\"" + serial() + "\",\"cart\":{\"id\":" + carts.get(1).id() + "}},"
+                + "{\"serialNumber\":\"" + serial() + "\",\"cart\":{\"id\":" + carts.get(0).id() + "}}]";
+
+        // When
+        String response = mockMvc.perform(post("/api/items/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(3))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        List<Number> ids = JsonPath.read(response, "$.results[*].id");
+        assertThat(ids.stream().map(id -> ShardIds.shardOf(id.longValue()))).containsExactly(2, 1, 0);
+    }
+
+    private static String serial() {
+        return "SHARD-" + SERIALS.incrementAndGet();
+    }
+}
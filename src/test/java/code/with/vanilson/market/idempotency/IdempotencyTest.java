@@ -0,0 +1,290 @@
+package code.with.vanilson.market.idempotency;
+
+import code.with.vanilson.market.cart.CartRepository;
+import code.with.vanilson.market.support.QueryCountConfig;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Idempotency Test
+ * <p>
+ * Retries of create requests carrying an {@code Idempotency-Key}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Idempotency Test")
+class IdempotencyTest {
+    private static final String CART = "{\"name\": \"Idempotent\", \"items\": [{\"serialNumber\": \"ID-1\"}]}";
+    /**
+     * MockMvc requests come from 127.0.0.1 without an API key.
+     */
+    private static final String LOCAL_CLIENT = "address:127.0.0.1";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CartRepository cartRepository;
+
+    @Autowired
+    IdempotencyStore idempotencyStore;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        key = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart retried with the same key")
+    @Test
+    void testCreateCart_ShouldReplayResponseWithoutQueries_WhenKeyIsReused() throws Exception {
+        // Given
+        MvcResult first = mockMvc.perform(post("/api/carts/create-cart")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .content(CART))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Integer cartId = JsonPath.read(first.getResponse().getContentAsString(), "$.id");
+        long carts = cartRepository.count();
+        QueryCountConfig.reset();
+
+        // When / Then
+        mockMvc.perform(post("/api/carts/create-cart")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .content(CART))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED, "true"))
+                .andExpect(jsonPath("$.id").value(cartId))
+                .andExpect(jsonPath("$.items[0].serialNumber").value("ID-1"));
+
+        assertThat(QueryCountConfig.count().getTotal()).isZero();
+        assertThat(cartRepository.count()).isEqualTo(carts);
+    }
+
+    /**
+     * Test create item - POST /api/items/create-item
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create item - POST /api/items/create-item with a key reused for another body")
+    @Test
+    void testCreateItem_ShouldReturnUnprocessableEntity_WhenKeyIsReusedForAnotherRequest() throws Exception {
+        // Given
+        MvcResult cart = mockMvc.perform(post("/api/carts/create-cart")
+                        .contentType("application/json")
+                        .content(CART))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Integer cartId = JsonPath.read(cart.getResponse().getContentAsString(), "$.id");
+        mockMvc.perform(post("/api/items/create-item")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"ID-2\", \"cart\": {\"id\": " + cartId + "}}"))
+                .andExpect(status().isCreated());
+
+        // When / Then
+        mockMvc.perform(post("/api/items/create-item")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .content("{\"serialNumber\": \"ID-3\", \"cart\": {\"id\": " + cartId + "}}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart while the key is in progress")
+    @Test
+    void testCreateCart_ShouldReturnConflict_WhenKeyIsInProgress() throws Exception {
+        // Given
+        assertThat(idempotencyStore.claim(IdempotencyFilter.storedKey(LOCAL_CLIENT, key), "another request")).isTrue();
+
+        // When / Then
+        mockMvc.perform(post("/api/carts/create-cart")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .content(CART))
+                .andExpect(status().isConflict());
+    }
+
+    /**
+     * Test create item - POST /api/items/create-item
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create item - POST /api/items/create-item releases the key when it fails")
+    @Test
+    void testCreateItem_ShouldReleaseKey_WhenRequestFails() throws Exception {
+        // Given
+        String item = "{\"serialNumber\": \"ID-4\", \"cart\": {\"id\": " + Long.MAX_VALUE + "}}";
+        mockMvc.perform(post("/api/items/create-item")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .content(item))
+                .andExpect(status().isNotFound());
+
+        // When / Then
+        assertThat(idempotencyStore.find(IdempotencyFilter.storedKey(LOCAL_CLIENT, key))).isEmpty();
+    }
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart with the same key from two clients")
+    @Test
+    void testCreateCart_ShouldNotReplayAnotherClientsResponse_WhenClientsPickTheSameKey() throws Exception {
+        // Given
+        MvcResult first = mockMvc.perform(post("/api/carts/create-cart")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .header("X-API-Key", "client-a")
+                        .contentType("application/json")
+                        .content(CART))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Integer cartId = JsonPath.read(first.getResponse().getContentAsString(), "$.id");
+
+        // When / Then
+        mockMvc.perform(post("/api/carts/create-cart")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .header("X-API-Key", "client-b")
+                        .contentType("application/json")
+                        .content(CART))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED))
+                .andExpect(jsonPath("$.id").value(not(cartId)));
+    }
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart retried with the same key but another Accept")
+    @Test
+    void testCreateCart_ShouldReturnUnprocessableEntity_WhenRetryAcceptsAnotherFormat() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/carts/create-cart")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .accept("application/json")
+                        .content(CART))
+                .andExpect(status().isCreated());
+
+        // When / Then
+        mockMvc.perform(post("/api/carts/create-cart")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .accept("application/cbor")
+                        .content(CART))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    /**
+     * Test create cart - POST /api/carts/create-cart
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test create cart - POST /api/carts/create-cart with a body above the limit")
+    @Test
+    void testCreateCart_ShouldReturnPayloadTooLarge_WhenBodyIsAboveTheLimit() throws Exception {
+        // Given
+        String cart = "{\"name\": \"" + "x".repeat(1024 * 1024) + "\"}";
+
+        // When / Then
+        mockMvc.perform(post("/api/carts/create-cart")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                        .contentType("application/json")
+                        .content(cart))
+                .andExpect(status().isPayloadTooLarge());
+        assertThat(idempotencyStore.find(IdempotencyFilter.storedKey(LOCAL_CLIENT, key))).isEmpty();
+    }
+
+    @DisplayName("Test cached body - a read listener is handed the whole body")
+    @Test
+    void testCachedBodyRequest_ShouldCallReadListener_WhenBodyIsReadAsynchronously() throws Exception {
+        // Given
+        byte[] body = CART.getBytes(StandardCharsets.UTF_8);
+        ServletInputStream in = new IdempotencyFilter.CachedBodyRequest(new MockHttpServletRequest(), body)
+                .getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allRead = new AtomicBoolean();
+
+        // When
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[16];
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(buffer, 0, in.read(buffer));
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        // Then
+        assertThat(read.toByteArray()).isEqualTo(body);
+        assertThat(allRead).isTrue();
+    }
+
+    @DisplayName("Test find - a response read from the table is cached only until its row expires")
+    @Test
+    void testFind_ShouldForgetCachedResponse_WhenItsRowExpires() throws Exception {
+        // Given
+        jdbcTemplate.update("INSERT INTO tb_idempotency_keys (idempotency_key, request_hash, status, expires_at) "
+                + "VALUES (?, 'stored elsewhere', 201, ?)", key, Timestamp.from(Instant.now().plusMillis(500)));
+        assertThat(idempotencyStore.find(key)).map(StoredResponse::status).contains(201);
+
+        // When
+        Thread.sleep(1000);
+
+        // Then
+        assertThat(idempotencyStore.find(key)).isEmpty();
+    }
+}
@@ -0,0 +1,283 @@
+package code.with.vanilson.market.load;
+
+import code.with.vanilson.market.MarketApplication;
+import code.with.vanilson.market.support.LoadDriver;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.listener.SingleQueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Market Load Test
+ * <p>
+ * Starts the application on a random port against an in-memory H2 database in PostgreSQL mode
+ * and drives weighted mixes of cart and item create/read/update/delete requests through
+ * {@code CartController} and {@code ItemController} over HTTP. Every scenario reports
+ * throughput, latency percentiles and the SQL statements it caused, and the report is written
+ * to {@code target/load-test/report.txt}. Runs offline, disabled unless requested:
+ * <pre>
+ * mvn -o -Pload test
+ * mvn -o -Pload test -Dload.concurrency=100 -Dload.duration=30 -Dload.scenarios=mixed-crud
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "load.test", matches = "true")
+@DisplayName("Market Load Test")
+class MarketLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 50);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration", 10));
+    private static final int SEED_CARTS = Integer.getInteger("load.seed.carts", 100);
+    private static final int SEED_ITEMS = Integer.getInteger("load.seed.items", 10);
+    private static final Set<String> SCENARIOS = new HashSet<>(
+            Arrays.asList(System.getProperty("load.scenarios", "read-heavy,mixed-crud,write-heavy").split(",")));
+    private static final Path REPORT = Path.of("target", "load-test", "report.txt");
+
+    /**
+     * SQL statements of every connection, whichever thread runs them.
+     */
+    private static final SingleQueryCountHolder SQL_COUNTS = new SingleQueryCountHolder();
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static ConfigurableApplicationContext context;
+    private static String base;
+    private static long[] cartIds;
+    private static long[] itemIds;
+    private static final Queue<Long> deletableItems = new ConcurrentLinkedQueue<>();
+    private static final AtomicLong serial = new AtomicLong();
+
+    enum Operation {
+        GET_CART, GET_ITEM, LIST_ITEMS, CREATE_CART, CREATE_ITEM, UPDATE_ITEM, DELETE_ITEM
+    }
+
+    /**
+     * A named mix of operations, each picked with a probability proportional to its weight.
+     */
+    record Scenario(String name, Map<Operation, Integer> weights) {
+
+        Operation pick() {
+            int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+            int roll = ThreadLocalRandom.current().nextInt(total);
+            for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+                roll -= weight.getValue();
+                if (roll < 0) {
+                    return weight.getKey();
+                }
+            }
+            throw new IllegalStateException("Empty scenario " + name);
+        }
+    }
+
+    record Report(LoadDriver.Result result, long selects, long inserts, long updates, long deletes, long total) {
+
+        static String header() {
+            return LoadDriver.Result.header() + String.format(" %9s %8s %8s %8s %8s", "sql/req", "select",
+                    "insert", "update", "delete");
+        }
+
+        @Override
+        public String toString() {
+            double perRequest = result.requests() == 0 ? 0 : (double) total / result.requests();
+            return result + String.format(" %9.2f %8d %8d %8d %8d", perRequest, selects, inserts, updates, deletes);
+        }
+    }
+
+    @TestConfiguration
+    static class SqlCountConfig {
+
+        @Bean
+        static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return ProxyDataSourceBuilder.create(dataSource)
+                                .name(beanName)
+                                .countQuery(SQL_COUNTS)
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @BeforeAll
+    static void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(MarketApplication.class, SqlCountConfig.class)
+                .profiles("test")
+                .properties("server.port=0", "logging.level.root=WARN", "spring.devtools.restart.enabled=false",
+                        // A database of its own, whatever other tests left in the shared one
+                        "spring.datasource.url=jdbc:h2:mem:market_load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.datasource.hikari.maximum-pool-size=" + Math.min(CONCURRENCY, 50))
+                .run();
+        base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        seed();
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @DisplayName("Test mixed create/read/update/delete traffic")
+    @Test
+    void testScenarios_ShouldReportThroughputLatencyAndSqlCounts() throws Exception {
+        List<Scenario> scenarios = List.of(
+                new Scenario("read-heavy", new EnumMap<>(Map.of(Operation.GET_CART, 40, Operation.GET_ITEM, 30,
+                        Operation.LIST_ITEMS, 20, Operation.CREATE_ITEM, 5, Operation.UPDATE_ITEM, 5))),
+                new Scenario("mixed-crud", new EnumMap<>(Map.of(Operation.GET_CART, 25, Operation.GET_ITEM, 25,
+                        Operation.CREATE_ITEM, 20, Operation.UPDATE_ITEM, 15, Operation.DELETE_ITEM, 10,
+                        Operation.CREATE_CART, 5))),
+                new Scenario("write-heavy", new EnumMap<>(Map.of(Operation.CREATE_ITEM, 40, Operation.UPDATE_ITEM, 30,
+                        Operation.DELETE_ITEM, 20, Operation.CREATE_CART, 10))));
+
+        List<Report> reports = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            if (SCENARIOS.contains(scenario.name())) {
+                reports.add(run(scenario));
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("concurrency %d, %ds per scenario, %d seed carts with %d items, Java %s",
+                CONCURRENCY, DURATION.toSeconds(), SEED_CARTS, SEED_ITEMS, Runtime.version()));
+        lines.add(Report.header());
+        reports.forEach(report -> lines.add(report.toString()));
+        lines.forEach(System.out::println);
+        Files.createDirectories(REPORT.getParent());
+        Files.write(REPORT, lines);
+
+        assertThat(reports).isNotEmpty();
+        assertThat(reports).allSatisfy(report -> {
+            assertThat(report.result().requests()).isPositive();
+            assertThat(report.result().errors()).as("failed requests in %s", report.result().scenario()).isZero();
+        });
+    }
+
+    private Report run(Scenario scenario) throws InterruptedException {
+        SQL_COUNTS.clear();
+        LoadDriver.Result result = LoadDriver.run(scenario.name(), CONCURRENCY, DURATION,
+                () -> execute(scenario.pick()));
+        long selects = 0;
+        long inserts = 0;
+        long updates = 0;
+        long deletes = 0;
+        long total = 0;
+        for (QueryCount count : SQL_COUNTS.getQueryCountMap().values()) {
+            selects += count.getSelect();
+            inserts += count.getInsert();
+            updates += count.getUpdate();
+            deletes += count.getDelete();
+            total += count.getTotal();
+        }
+        return new Report(result, selects, inserts, updates, deletes, total);
+    }
+
+    private static int execute(Operation operation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long cartId = cartIds[random.nextInt(cartIds.length)];
+        long itemId = itemIds[random.nextInt(itemIds.length)];
+        return switch (operation) {
+            case GET_CART -> send(get("/api/carts/" + cartId)).statusCode();
+            case GET_ITEM -> send(get("/api/items/" + itemId)).statusCode();
+            case LIST_ITEMS -> send(get("/api/items?size=20&after=" + (itemId - 1))).statusCode();
+            case CREATE_CART -> send(post("/api/carts/create-cart", cart("Load " + serial.incrementAndGet(), 3)))
+                    .statusCode();
+            case CREATE_ITEM -> createItem(cartId);
+            case UPDATE_ITEM -> send(json("/api/items/" + itemId)
+                    .PUT(HttpRequest.BodyPublishers.ofString(item(cartId)))).statusCode();
+            case DELETE_ITEM -> {
+                // Items created by this run are deleted, the seed items stay for reads and updates
+                Long deletable = deletableItems.poll();
+                yield deletable == null
+                        ? createItem(cartId)
+                        : send(HttpRequest.newBuilder(URI.create(base + "/api/items/" + deletable)).DELETE())
+                        .statusCode();
+            }
+        };
+    }
+
+    private static int createItem(long cartId) throws Exception {
+        HttpResponse<String> response = send(post("/api/items/create-item", item(cartId)));
+        if (response.statusCode() == 201) {
+            deletableItems.add(MAPPER.readTree(response.body()).get("id").asLong());
+        }
+        return response.statusCode();
+    }
+
+    private static void seed() throws Exception {
+        cartIds = new long[SEED_CARTS];
+        List<Long> items = new ArrayList<>(SEED_CARTS * SEED_ITEMS);
+        for (int i = 0; i < SEED_CARTS; i++) {
+            HttpResponse<String> response = send(post("/api/carts/create-cart", cart("Seed " + i, SEED_ITEMS)));
+            assertThat(response.statusCode()).isEqualTo(201);
+            JsonNode cart = MAPPER.readTree(response.body());
+            cartIds[i] = cart.get("id").asLong();
+            cart.get("items").forEach(item -> items.add(item.get("id").asLong()));
+        }
+        itemIds = items.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static String cart(String name, int itemCount) throws IOException {
+        List<Map<String, String>> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(Map.of("serialNumber", "LT-" + serial.incrementAndGet()));
+        }
+        return MAPPER.writeValueAsString(Map.of("name", name, "items", items));
+    }
+
+    private static String item(long cartId) {
+        return "{\"serialNumber\": \"LT-" + serial.incrementAndGet() + "\", \"cart\": {\"id\": " + cartId + "}}";
+    }
+
+    private static HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(base + path)).GET();
+    }
+
+    private static HttpRequest.Builder post(String path, String body) {
+        return json(path).POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private static HttpRequest.Builder json(String path) {
+        return HttpRequest.newBuilder(URI.create(base + path)).header("Content-Type", "application/json");
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return CLIENT.send(request.timeout(Duration.ofSeconds(10)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
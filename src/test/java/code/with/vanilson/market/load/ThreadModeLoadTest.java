@@ -0,0 +1,92 @@
+package code.with.vanilson.market.load;
+
+import code.with.vanilson.market.MarketApplication;
+import code.with.vanilson.market.support.LoadDriver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Thread Mode Load Test
+ * <p>
+ * Compares throughput and latency of the platform-thread and virtual-thread web tiers under the
+ * same read/write traffic. Disabled by default; virtual threads need a Java 21 runtime:
+ * <pre>
+ * JAVA_HOME=/path/to/jdk21 mvn -Pjava21 test -Dtest=ThreadModeLoadTest -Dload.test=true \
+ *     -Dload.concurrency=400 -Dload.duration=30
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "load.test", matches = "true")
+@DisplayName("Thread Mode Load Test")
+class ThreadModeLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 200);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration", 15));
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @DisplayName("Test platform threads versus virtual threads")
+    @Test
+    void testThreadModes_ShouldReportThroughputAndLatency() throws Exception {
+        List<LoadDriver.Result> results = new ArrayList<>(run("platform", "test"));
+        if (Runtime.version().feature() >= 21) {
+            results.addAll(run("virtual", "test", "virtual-threads"));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + ": skipping the virtual-thread mode");
+        }
+
+        System.out.println(LoadDriver.Result.header());
+        results.forEach(System.out::println);
+        assertThat(results).allSatisfy(result -> assertThat(result.requests()).isPositive());
+    }
+
+    private List<LoadDriver.Result> run(String mode, String... profiles) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MarketApplication.class)
+                .profiles(profiles)
+                .properties("server.port=0", "logging.level.root=WARN", "spring.devtools.restart.enabled=false")
+                .run()) {
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            long cartId = createCart(base);
+            AtomicLong serial = new AtomicLong();
+
+            LoadDriver.Result reads = LoadDriver.run(mode + " GET /api/items page", CONCURRENCY, DURATION,
+                    () -> send(HttpRequest.newBuilder(URI.create(base + "/api/items?after=0&size=20")).GET()));
+            LoadDriver.Result writes = LoadDriver.run(mode + " POST /api/items/create-item", CONCURRENCY, DURATION,
+                    () -> send(HttpRequest.newBuilder(URI.create(base + "/api/items/create-item"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"serialNumber\": \"LT-"
+                                    + serial.incrementAndGet() + "\", \"cart\": {\"id\": " + cartId + "}}"))));
+            return List.of(reads, writes);
+        }
+    }
+
+    private long createCart(String base) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/api/carts/create-cart"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"Load\", \"items\": []}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        String body = response.body();
+        return Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+
+    private int send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.timeout(Duration.ofSeconds(10)).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+}
@@ -0,0 +1,73 @@
+package code.with.vanilson.market.metrics;
+
+import code.with.vanilson.market.support.QueryCountConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Connection Pool Metrics Test
+ * <p>
+ * Checks the Hikari settings and the pool telemetry exposed through Actuator.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Connection Pool Metrics Test")
+class ConnectionPoolMetricsTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    /**
+     * Test pool endpoint - GET /actuator/pool
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test pool endpoint - GET /actuator/pool reports the configured pool and its acquisitions")
+    @Test
+    void testPoolEndpoint_ShouldReportPoolState_WhenPoolIsInUse() throws Exception {
+        // Given
+        mockMvc.perform(get("/api/carts/summary/totals")).andExpect(status().isOk());
+
+        // When / Then
+        mockMvc.perform(get("/actuator/pool"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pool").value("market-pool"))
+                .andExpect(jsonPath("$.maximumPoolSize").value(10))
+                .andExpect(jsonPath("$.minimumIdle").value(10))
+                .andExpect(jsonPath("$.connectionTimeoutMs").value(5000))
+                .andExpect(jsonPath("$.leakDetectionThresholdMs").value(20000))
+                .andExpect(jsonPath("$.total").value(greaterThan(0)))
+                .andExpect(jsonPath("$.acquisitions").value(greaterThan(0)))
+                .andExpect(jsonPath("$.timeouts").value(0));
+    }
+
+    /**
+     * Test pool metrics - GET /actuator/metrics
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test pool metrics - GET /actuator/metrics lists wait time, active connections and timeouts")
+    @Test
+    void testPoolMetrics_ShouldBePublished_WhenPoolIsConfigured() throws Exception {
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.names", hasItem("hikaricp.connections.acquire")))
+                .andExpect(jsonPath("$.names", hasItem("hikaricp.connections.active")))
+                .andExpect(jsonPath("$.names", hasItem("hikaricp.connections.pending")))
+                .andExpect(jsonPath("$.names", hasItem("hikaricp.connections.timeout")));
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.acquire").param("tag", "pool:market-pool"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,136 @@
+package code.with.vanilson.market.metrics;
+
+import code.with.vanilson.market.cart.Cart;
+import code.with.vanilson.market.cart.CartService;
+import code.with.vanilson.market.cart.Item;
+import code.with.vanilson.market.cart.ItemService;
+import code.with.vanilson.market.support.QueryCountConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Service Metrics Test
+ * <p>
+ * Checks the service timers, the not-found counter, the cart gauges and the per-request
+ * statement summary.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCountConfig.class)
+@DisplayName("Service Metrics Test")
+class ServiceMetricsTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    CartService cartService;
+
+    @Autowired
+    CartStatisticsMetrics cartStatisticsMetrics;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Test get item by id - GET /api/items/{id}
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get item by id - GET /api/items/{id} is timed and counted as not found")
+    @Test
+    void testGetItemById_ShouldRecordTimerAndCounter_WhenItemIsMissing() throws Exception {
+        // Given
+        double notFound = notFoundCount();
+        long timed = timerCount();
+
+        // When
+        mockMvc.perform(get("/api/items/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+
+        // Then
+        assertThat(notFoundCount()).isEqualTo(notFound + 1);
+        assertThat(timerCount()).isEqualTo(timed + 1);
+    }
+
+    /**
+     * Test get carts page - GET /api/carts
+     * @throws Exception if an error occurs during the request
+     */
+    @DisplayName("Test get carts page - GET /api/carts records its JDBC statements")
+    @Test
+    void testGetCartsPage_ShouldRecordStatementCount_WhenRequestHitsTheDatabase() throws Exception {
+        // Given
+        var cart = new Cart("Metrics");
+        cart.getItems().add(new Item("MT-1", null));
+        cartService.createCartWithItems(cart);
+        mockMvc.perform(get("/api/carts").param("size", "1")).andExpect(status().isOk());
+
+        // When
+        DistributionSummary summary = meterRegistry.get("market.http.jdbc.statements")
+                .tag("uri", "/api/carts").summary();
+
+        // Then
+        assertThat(summary.count()).isPositive();
+        assertThat(summary.max()).isEqualTo(2);
+    }
+
+    @DisplayName("Test statement counter - statements run through a JdbcTemplate are counted")
+    @Test
+    void testJdbcStatementCounter_ShouldCountJdbcTemplateStatements_WhenTheyRunOnTheDataSource() {
+        // Given
+        JdbcStatementCounter.reset();
+
+        // When
+        jdbcTemplate.queryForObject("select count(*) from tb_carts", Long.class);
+        jdbcTemplate.batchUpdate("update tb_carts set name = name where id = ?", List.of(
+                new Object[]{Long.MAX_VALUE}, new Object[]{Long.MAX_VALUE - 1}));
+
+        // Then
+        assertThat(JdbcStatementCounter.reset()).isEqualTo(2);
+    }
+
+    @DisplayName("Test cart statistics - average items per cart")
+    @Test
+    void testAverageItemsPerCart_ShouldBePositive_WhenCartsHaveItems() {
+        // Given
+        var cart = new Cart("Metrics gauge");
+        cart.getItems().add(new Item("MT-2", null));
+        cartService.createCartWithItems(cart);
+
+        // When / Then
+        assertThat(cartStatisticsMetrics.averageItemsPerCart()).isPositive();
+        assertThat(meterRegistry.get("market.cart.items.average").gauge().value()).isPositive();
+    }
+
+    private double notFoundCount() {
+        Counter counter = meterRegistry.find("market.resource.not.found").tag("method", "findItemById").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private long timerCount() {
+        Timer timer = meterRegistry.find("market.service").tag("class", ItemService.class.getName())
+                .tag("method", "findItemById").tag("exception", "ResourceNotFoundException").timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,37 @@
+package code.with.vanilson.market.startup;
+
+import code.with.vanilson.market.cart.CartController;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springdoc.core.properties.SpringDocConfigProperties;
+import org.springdoc.webmvc.api.OpenApiWebMvcResource;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Startup Config Test
+ */
+@DisplayName("Startup Config Test")
+class StartupConfigTest {
+
+    @DisplayName("Test defer springdoc - only springdoc beans become lazy")
+    @Test
+    void testDeferSpringdoc_ShouldMakeSpringdocBeansLazy_WhenApplied() {
+        // Given
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("openApiResource", new RootBeanDefinition(OpenApiWebMvcResource.class));
+        beanFactory.registerBeanDefinition("springDocConfigProperties",
+                new RootBeanDefinition(SpringDocConfigProperties.class));
+        beanFactory.registerBeanDefinition("cartController", new RootBeanDefinition(CartController.class));
+
+        // When
+        StartupConfig.deferSpringdoc().postProcessBeanFactory(beanFactory);
+
+        // Then
+        assertThat(beanFactory.getBeanDefinition("openApiResource").isLazyInit()).isTrue();
+        assertThat(beanFactory.getBeanDefinition("springDocConfigProperties").isLazyInit()).isTrue();
+        assertThat(beanFactory.getBeanDefinition("cartController").isLazyInit()).isFalse();
+    }
+}
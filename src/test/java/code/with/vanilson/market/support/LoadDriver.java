@@ -0,0 +1,117 @@
+package code.with.vanilson.market.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a request at a fixed concurrency for a fixed duration and reports throughput and
+ * latency percentiles. Every worker records into its own buffer, so the driver itself adds no
+ * contention to what is being measured.
+ *
+ * @author vamuhong
+ * @version 1.0
+ * @since 2024-09-06
+ */
+public final class LoadDriver {
+
+    /**
+     * A single request; returns the HTTP status code.
+     */
+    @FunctionalInterface
+    public interface Request {
+        int execute() throws Exception;
+    }
+
+    public record Result(String scenario, long requests, long errors, double throughput,
+                         double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+
+        public static String header() {
+            return String.format("%-40s %10s %8s %12s %9s %9s %9s %9s",
+                    "scenario", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %10d %8d %12.1f %9.2f %9.2f %9.2f %9.2f",
+                    scenario, requests, errors, throughput, p50Millis, p95Millis, p99Millis, maxMillis);
+        }
+    }
+
+    private LoadDriver() {
+    }
+
+    public static Result run(String scenario, int concurrency, Duration duration, Request request)
+            throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> futures = new ArrayList<>(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    if (!succeeded(request)) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - begin;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        long[] all = collect(futures);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        workers.shutdownNow();
+
+        Arrays.sort(all);
+        return new Result(scenario, all.length, errors.get(), all.length / elapsedSeconds,
+                percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static boolean succeeded(Request request) {
+        try {
+            int status = request.execute();
+            return status >= 200 && status < 300;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static long[] collect(List<Future<long[]>> futures) throws InterruptedException {
+        List<long[]> parts = new ArrayList<>(futures.size());
+        int total = 0;
+        for (Future<long[]> future : futures) {
+            try {
+                long[] part = future.get();
+                parts.add(part);
+                total += part.length;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load worker failed", e.getCause());
+            }
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        return all;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}